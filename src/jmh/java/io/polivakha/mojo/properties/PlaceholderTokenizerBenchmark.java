@@ -0,0 +1,80 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.polivakha.mojo.properties.PlaceholderTokenizer.Segment;
+
+/**
+ * Throughput of scanning and expanding long values with many placeholders, like generated classpath strings.
+ * Run with <code>mvn -Pbenchmarks test-compile exec:exec -Djmh.includes=PlaceholderTokenizerBenchmark</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderTokenizerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int placeholders;
+
+    private String value;
+
+    private Properties properties;
+
+    @Setup
+    public void setUp() {
+        properties = new Properties();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < placeholders; i++) {
+            properties.setProperty("lib." + i, "/home/build/.m2/repository/lib-" + i + ".jar");
+            builder.append("${lib.").append(i).append("}:");
+        }
+        value = builder.toString();
+        properties.setProperty("classpath", value);
+    }
+
+    @Benchmark
+    public List<Segment> tokenize() {
+        return PlaceholderTokenizer.tokenize(value);
+    }
+
+    @Benchmark
+    public String expand() {
+        return new PropertyResolver().getPropertyValue("classpath", properties, null);
+    }
+}
@@ -0,0 +1,197 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.polivakha.mojo.properties.source.EnvironmentPropertySource;
+import io.polivakha.mojo.properties.source.PropertySource;
+import io.polivakha.mojo.properties.source.PropertySourceChain;
+import io.polivakha.mojo.properties.source.SnapshotPropertySource;
+
+/**
+ * Throughput of the {@link PropertyResolver} on synthetic workloads. Run with
+ * <code>mvn -Pbenchmarks test-compile exec:exec -Djmh.includes=PropertyResolverBenchmark</code>.
+ * Every invocation uses a fresh resolver, since the resolver memoizes the values it has already resolved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyResolverBenchmark {
+
+    /**
+     * p0 = ${p1}, p1 = ${p2}, ..., p{depth} = bottom
+     */
+    @State(Scope.Benchmark)
+    public static class DeepChain {
+
+        @Param({"1000", "10000"})
+        public int depth;
+
+        PropertySource source;
+
+        @Setup
+        public void setUp() {
+            Properties properties = new Properties();
+            for (int i = 0; i < depth; i++) {
+                properties.setProperty("p" + i, "${p" + (i + 1) + "}");
+            }
+            properties.setProperty("p" + depth, "bottom");
+            source = chainOf(properties, new Properties());
+        }
+    }
+
+    /**
+     * module.{i} = ${repo.root}/module-{i}, all of them reference the single base key
+     */
+    @State(Scope.Benchmark)
+    public static class FanOut {
+
+        @Param({"20000"})
+        public int width;
+
+        List<String> keys;
+
+        PropertySource source;
+
+        @Setup
+        public void setUp() {
+            Properties properties = new Properties();
+            keys = new ArrayList<>();
+            properties.setProperty("repo.root", "${repo.parent}/repo");
+            properties.setProperty("repo.parent", "/home/build");
+            for (int i = 0; i < width; i++) {
+                properties.setProperty("module." + i, "${repo.root}/module-" + i);
+                keys.add("module." + i);
+            }
+            source = chainOf(properties, new Properties());
+        }
+    }
+
+    /**
+     * A flat set of keys, where every tenth value contains a placeholder
+     */
+    @State(Scope.Benchmark)
+    public static class FlatSet {
+
+        @Param({"100000"})
+        public int size;
+
+        List<String> keys;
+
+        PropertySource source;
+
+        @Setup
+        public void setUp() {
+            Properties properties = new Properties();
+            keys = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String value = i % 10 == 0 && i > 0 ? "${key." + (i - 1) + "}-" + i : "value-" + i;
+                properties.setProperty("key." + i, value);
+                keys.add("key." + i);
+            }
+            source = chainOf(properties, new Properties());
+        }
+    }
+
+    /**
+     * Values, that consist mostly of environment variable references
+     */
+    @State(Scope.Benchmark)
+    public static class EnvironmentHeavy {
+
+        @Param({"10000"})
+        public int size;
+
+        List<String> keys;
+
+        Properties properties;
+
+        Properties environment;
+
+        @Setup
+        public void setUp() {
+            properties = new Properties();
+            environment = new Properties();
+            keys = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                environment.setProperty("VAR_" + i, "env-value-" + i);
+            }
+            for (int i = 0; i < size; i++) {
+                properties.setProperty("key." + i, "${env.VAR_" + (i % 100) + "}/${env.VAR_" + ((i + 1) % 100) + "}/" + i);
+                keys.add("key." + i);
+            }
+        }
+    }
+
+    private static PropertySource chainOf(Properties properties, Properties environment) {
+        return new PropertySourceChain(
+          SnapshotPropertySource.of(properties),
+          SnapshotPropertySource.ofSystemProperties(),
+          EnvironmentPropertySource.of(environment)
+        );
+    }
+
+    @Benchmark
+    public String deepChain(DeepChain state) {
+        return new PropertyResolver().getPropertyValue("p0", state.source);
+    }
+
+    @Benchmark
+    public Map<String, String> wideFanOut(FanOut state) {
+        return new PropertyResolver().resolveAll(state.keys, state.source);
+    }
+
+    @Benchmark
+    public Map<String, String> flatSet(FlatSet state) {
+        return new PropertyResolver().resolveAll(state.keys, state.source);
+    }
+
+    @Benchmark
+    public Map<String, String> flatSetInParallel(FlatSet state) {
+        return new PropertyResolver(Runtime.getRuntime().availableProcessors()).resolveAll(state.keys, state.source);
+    }
+
+    /**
+     * Includes taking the snapshots of the sources, as the mojo does once per execution
+     */
+    @Benchmark
+    public Map<String, String> environmentHeavy(EnvironmentHeavy state) {
+        return new PropertyResolver().resolveAll(state.keys, chainOf(state.properties, state.environment));
+    }
+}
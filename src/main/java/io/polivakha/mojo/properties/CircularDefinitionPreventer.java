@@ -24,48 +24,66 @@ import java.util.Set;
 
 import io.polivakha.mojo.properties.exception.PropertyCircularDefinitionException;
 
+/**
+ * Keeps track of the keys, that are currently being expanded, i.e. the keys on the resolution stack. Entering and
+ * leaving a key, as well as checking if the key is already being expanded, are constant time operations.
+ */
 public class CircularDefinitionPreventer {
 
-    private final Set<String> keysUsed;
-
-    public CircularDefinitionPreventer(Set<String> usedKeySet) {
-        this.keysUsed = usedKeySet;
-    }
-
-    public CircularDefinitionPreventer() {
-        this(new LinkedHashSet<>());
-    }
+    private final Set<String> keysUsed = new LinkedHashSet<>();
 
     /**
      * Checks if property is already visited
      * @param key - key which defines the property
-     * @return true if property was already visited during value resolution, false otherwise
+     * @return true if property is being expanded right now, so visiting it again would be a circular definition
      */
     public boolean isPropertyAlreadyVisited(String key) {
         return keysUsed.contains(key);
     }
 
     /**
-     * Check that the expanded property does not provide a circular definition.
+     * Marks the key as being expanded
+     * @param key The key.
+     */
+    public void enter(String key) {
+        keysUsed.add(key);
+    }
+
+    /**
+     * Marks the key as fully expanded
+     * @param key The key.
+     */
+    public void leave(String key) {
+        keysUsed.remove(key);
+    }
+
+    /**
+     * @return number of keys, that are being expanded right now
+     */
+    public int depth() {
+        return keysUsed.size();
+    }
+
+    /**
+     * Reports that the expanded property does not provide a circular definition.
      * For instance:
      * <p>
      * some.key = ${some.property}
      * some.property = ${some.key}
      * <p>
      * This is a circular properties definition
-     * @param key The key.
-     * @return {@link CircularDefinitionPreventer}
+     * @param repeatedKey the key that was visited again while being expanded
      */
-    public CircularDefinitionPreventer cloneWithAdditionalKey( String key ) {
-        var keysUsedCopy = new LinkedHashSet<>(keysUsed);
-        keysUsedCopy.add(key);
-        return new CircularDefinitionPreventer(keysUsedCopy);
-    }
-
-    public void throwCircularDefinitionException() {
+    public void throwCircularDefinitionException(String repeatedKey) {
         StringBuilder buffer = new StringBuilder( "Circular property definition detected: \n");
-        keysUsed.forEach(key -> buffer.append(key).append(" --> "));
-        buffer.append(keysUsed.stream().findFirst());
+        boolean insideCycle = false;
+        for (String key : keysUsed) {
+            insideCycle = insideCycle || key.equals(repeatedKey);
+            if (insideCycle) {
+                buffer.append(key).append(" --> ");
+            }
+        }
+        buffer.append(repeatedKey);
         throw new PropertyCircularDefinitionException( buffer.toString() );
     }
 }
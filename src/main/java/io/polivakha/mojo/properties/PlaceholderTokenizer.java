@@ -0,0 +1,179 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Splits a raw property value into literal and reference {@link Segment}s in a single pass over its characters.
+ * <p>
+ * Nested references, like <code>${a.${b}}</code>, are supported: the key of such a reference is itself a list of
+ * segments, that has to be evaluated before the reference can be looked up. Malformed placeholders, i.e. the ones
+ * that are never closed, as well as empty <code>${}</code> placeholders are kept as literal text.
+ */
+final class PlaceholderTokenizer {
+
+    private PlaceholderTokenizer() {
+    }
+
+    /**
+     * @param value raw property value, must not be null
+     * @return segments of the value in order of appearance, empty list for empty value
+     */
+    static List<Segment> tokenize(String value) {
+        Deque<OpenReference> openReferences = new ArrayDeque<>();
+        List<Segment> topLevel = new ArrayList<>();
+        List<Segment> current = topLevel;
+
+        int literalStart = 0;
+        int length = value.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '$' && i + 1 < length && value.charAt(i + 1) == '{') {
+                addLiteral(current, value, literalStart, i);
+                OpenReference reference = new OpenReference(i);
+                openReferences.push(reference);
+                current = reference.keyParts;
+                i += 2;
+                literalStart = i;
+            } else if (c == '}' && !openReferences.isEmpty()) {
+                addLiteral(current, value, literalStart, i);
+                OpenReference reference = openReferences.pop();
+                current = openReferences.isEmpty() ? topLevel : openReferences.peek().keyParts;
+                if (reference.keyParts.isEmpty()) {
+                    addLiteral(current, value, reference.start, i + 1);
+                } else {
+                    current.add(Segment.reference(reference.keyParts));
+                }
+                i++;
+                literalStart = i;
+            } else {
+                i++;
+            }
+        }
+
+        addLiteral(current, value, literalStart, length);
+
+        while (!openReferences.isEmpty()) {
+            OpenReference unclosed = openReferences.pop();
+            List<Segment> parent = openReferences.isEmpty() ? topLevel : openReferences.peek().keyParts;
+            addLiteral(parent, value, unclosed.start, unclosed.start + 2);
+            for (Segment segment : unclosed.keyParts) {
+                if (segment.isLiteral()) {
+                    addLiteral(parent, segment.getLiteral());
+                } else {
+                    parent.add(segment);
+                }
+            }
+        }
+
+        return topLevel;
+    }
+
+    private static void addLiteral(List<Segment> segments, String value, int from, int to) {
+        if (from < to) {
+            addLiteral(segments, value.substring(from, to));
+        }
+    }
+
+    private static void addLiteral(List<Segment> segments, String literal) {
+        int last = segments.size() - 1;
+        if (last >= 0 && segments.get(last).isLiteral()) {
+            segments.set(last, Segment.literal(segments.get(last).getLiteral() + literal));
+        } else {
+            segments.add(Segment.literal(literal));
+        }
+    }
+
+    private static final class OpenReference {
+
+        /**
+         * Index of the '$' character that opened the reference
+         */
+        private final int start;
+
+        private final List<Segment> keyParts = new ArrayList<>();
+
+        private OpenReference(int start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * Either a literal chunk of text, or a reference to another property, which key is described by the nested segments
+     */
+    static final class Segment {
+
+        private final String literal;
+
+        private final List<Segment> keyParts;
+
+        private Segment(String literal, List<Segment> keyParts) {
+            this.literal = literal;
+            this.keyParts = keyParts;
+        }
+
+        static Segment literal(String text) {
+            return new Segment(text, null);
+        }
+
+        static Segment reference(List<Segment> keyParts) {
+            return new Segment(null, Collections.unmodifiableList(keyParts));
+        }
+
+        boolean isLiteral() {
+            return literal != null;
+        }
+
+        String getLiteral() {
+            return literal;
+        }
+
+        List<Segment> getKeyParts() {
+            return keyParts;
+        }
+
+        /**
+         * @return the key of the reference if it does not contain nested references, null otherwise
+         */
+        String getPlainKey() {
+            if (keyParts.size() == 1 && keyParts.get(0).isLiteral()) {
+                return keyParts.get(0).getLiteral();
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            if (isLiteral()) {
+                return literal;
+            }
+            StringBuilder result = new StringBuilder("${");
+            keyParts.forEach(result::append);
+            return result.append('}').toString();
+        }
+    }
+}
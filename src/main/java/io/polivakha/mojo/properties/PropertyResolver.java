@@ -19,14 +19,101 @@ package io.polivakha.mojo.properties;
  * under the License.
  */
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.commons.lang3.StringUtils;
+import io.polivakha.mojo.properties.PlaceholderTokenizer.Segment;
+import io.polivakha.mojo.properties.exception.PropertyCircularDefinitionException;
+import io.polivakha.mojo.properties.source.EnvironmentPropertySource;
+import io.polivakha.mojo.properties.source.PropertySource;
+import io.polivakha.mojo.properties.source.PropertySourceChain;
 
+/**
+ * Resolves the placeholders in property values. Every resolved value is memoized, so within the lifetime of
+ * a single resolver each key is expanded exactly once, no matter how many other properties reference it.
+ * Therefore, an instance is meant to be used for a single resolution pass over one set of properties, and a new
+ * instance should be created once the properties (or environment) change.
+ * <p>
+ * The raw values are looked up in a {@link PropertySource}. Typically, it is a {@link PropertySourceChain} of
+ * project properties, system properties and environment variables.
+ */
 public class PropertyResolver {
 
+    /**
+     * Minimal number of keys, that is worth resolving as a separate fork join task
+     */
+    private static final int MIN_KEYS_PER_TASK = 256;
+
+    /**
+     * Fully resolved values by property key, shared by all the top-level lookups
+     */
+    private final Map<String, String> resolvedValues = new ConcurrentHashMap<>();
+
+    private final int threads;
+
+    private final TemplateCache templates;
+
+    private final LongAdder expandedPlaceholders = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final AtomicInteger maxChainDepth = new AtomicInteger();
+
+    public PropertyResolver() {
+        this(1);
+    }
+
+    /**
+     * @param threads the number of threads used by {@link #resolveAll(Collection, PropertySource)}, 1 means
+     *                that the keys are resolved sequentially in the calling thread
+     */
+    public PropertyResolver(int threads) {
+        this(threads, new TemplateCache());
+    }
+
+    /**
+     * @param threads the number of threads used by {@link #resolveAll(Collection, PropertySource)}
+     * @param templates already compiled values, e.g. the ones compiled while loading the resources
+     */
+    PropertyResolver(int threads, TemplateCache templates) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads to resolve properties must be positive, but was " + threads);
+        }
+        this.threads = threads;
+        this.templates = templates;
+    }
+
+    /**
+     * Creates the default chain of sources: project properties, then system properties, then environment variables.
+     * The system properties are looked up directly as well, rather than copied, so the chain is cheap to create per call
+     *
+     * @param mavenProjectProperties project properties, looked up directly
+     * @param environment environment variables, may be null
+     * @return the chain of sources
+     */
+    public static PropertySource fromPropertiesThenSystemThenEnvironment(Properties mavenProjectProperties, Properties environment) {
+        return new PropertySourceChain(
+          mavenProjectProperties::getProperty,
+          System::getProperty,
+          EnvironmentPropertySource.of(environment)
+        );
+    }
+
+    /**
+     * @see #getPropertyValue(String, PropertySource)
+     */
     public String getPropertyValue(String key, Properties mavenProjectProperties, Properties environment) {
-        return this.getPropertyValue(key, mavenProjectProperties, environment, new CircularDefinitionPreventer());
+        return getPropertyValue(key, fromPropertiesThenSystemThenEnvironment(mavenProjectProperties, environment));
     }
 
     /**
@@ -36,52 +123,297 @@ public class PropertyResolver {
      * leave unresolved properties alone, trying for System properties, and environment variables and implements
      * reparsing (in the case that the value of a property contains a key), and will not loop endlessly on a pair like
      * test = ${test}
+     * <p>
+     * The resolution does not recurse: the properties that are being expanded are kept on an explicit stack of
+     * {@link Frame}s, so reference chains of any depth can be resolved.
      *
      * @param key property key
-     * @param mavenProjectProperties project properties
-     * @param environment environment variables
-     * @return resolved property value, or property placeholder, if it was not resolved
-     * @throws IllegalArgumentException when properties are circularly defined
+     * @param source source of raw property values
+     * @return resolved property value, or null, if the property is not defined
+     * @throws PropertyCircularDefinitionException when properties are circularly defined
+     */
+    public String getPropertyValue(String key, PropertySource source) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        CircularDefinitionPreventer circularDefinitionPreventer = new CircularDefinitionPreventer();
+
+        String value = beginLookup(key, stack, circularDefinitionPreventer, source);
+        if (stack.isEmpty()) {
+            return value;
+        }
+
+        String completed = null;
+        int chainDepth = 0;
+        while (true) {
+            Frame frame = stack.peek();
+            chainDepth = Math.max(chainDepth, circularDefinitionPreventer.depth());
+
+            if (frame.awaiting) {
+                frame.awaiting = false;
+                if (frame.pendingKey == null) {
+                    frame.pendingKey = completed;
+                    lookupPendingKey(frame, stack, circularDefinitionPreventer, source);
+                } else {
+                    frame.accept(completed);
+                }
+            }
+
+            while (!frame.awaiting && frame.position < frame.segments.size()) {
+                Segment segment = frame.segments.get(frame.position);
+                if (segment.isLiteral()) {
+                    frame.buffer.append(segment.getLiteral());
+                    frame.position++;
+                } else if (segment.getPlainKey() != null) {
+                    frame.pendingKey = segment.getPlainKey();
+                    lookupPendingKey(frame, stack, circularDefinitionPreventer, source);
+                } else {
+                    frame.awaiting = true;
+                    stack.push(new Frame(null, segment.getKeyParts(), 16));
+                }
+            }
+
+            if (frame.awaiting) {
+                continue;
+            }
+
+            stack.pop();
+            completed = frame.buffer.toString();
+            if (frame.key != null) {
+                circularDefinitionPreventer.leave(frame.key);
+                resolvedValues.put(frame.key, completed);
+            }
+            if (stack.isEmpty()) {
+                maxChainDepth.accumulateAndGet(chainDepth, Math::max);
+                return completed;
+            }
+        }
+    }
+
+    /**
+     * @return number of placeholders, expanded by this resolver so far
+     */
+    public long getExpandedPlaceholdersCount() {
+        return expandedPlaceholders.sum();
+    }
+
+    /**
+     * @return number of lookups, that were served by already resolved values
+     */
+    public long getCacheHitsCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return the length of the longest chain of references, expanded by this resolver so far
+     */
+    public int getMaxChainDepth() {
+        return maxChainDepth.get();
+    }
+
+    /**
+     * @see #resolveAll(Collection, PropertySource)
+     */
+    public Map<String, String> resolveAll(Collection<String> keys, Properties mavenProjectProperties, Properties environment) {
+        return resolveAll(keys, fromPropertiesThenSystemThenEnvironment(mavenProjectProperties, environment));
+    }
+
+    /**
+     * Resolves all the given keys at once. At first, the graph of references between the keys (and everything they
+     * reference) is built, and all the circular definitions in it are reported together. Then the keys are evaluated
+     * in topological order, so that each value is computed only after all its dependencies are already resolved.
+     * <p>
+     * If the resolver uses more than one thread, then the graph is split into {@link ReferenceGraph#levels(List) levels}
+     * of keys that are independent of each other, and the keys of each level are resolved in parallel in the
+     * {@link ForkJoinPool}. The result does not depend on the number of threads.
+     *
+     * @param keys keys to resolve
+     * @param source source of raw property values, must be safe for concurrent reads if more than one thread is used
+     * @return resolved values by key, in iteration order of {@code keys}. Value is null if the key is not defined
+     * @throws PropertyCircularDefinitionException when properties are circularly defined
+     */
+    public Map<String, String> resolveAll(Collection<String> keys, PropertySource source) {
+        return resolve(keys, source, false);
+    }
+
+    /**
+     * Same as {@link #resolveAll(Collection, PropertySource)}, but the result also contains the values of all the keys,
+     * that are transitively referenced by the given keys.
+     *
+     * @param keys keys to resolve
+     * @param source source of raw property values
+     * @return resolved values of the given keys in their iteration order, followed by the values of the referenced keys
+     * @throws PropertyCircularDefinitionException when properties are circularly defined
+     */
+    public Map<String, String> resolveTransitively(Collection<String> keys, PropertySource source) {
+        return resolve(keys, source, true);
+    }
+
+    private Map<String, String> resolve(Collection<String> keys, PropertySource source, boolean includeReferencedKeys) {
+        ReferenceGraph graph = ReferenceGraph.build(keys, key -> templateOf(key, source));
+        List<List<String>> components = graph.stronglyConnectedComponents();
+
+        List<List<String>> cycles = graph.findCycles(components);
+        if (!cycles.isEmpty()) {
+            throwCircularDefinitionException(cycles);
+        }
+
+        if (threads == 1) {
+            for (List<String> component : components) {
+                getPropertyValue(component.get(0), source);
+            }
+        } else {
+            resolveInParallel(graph.levels(components), source);
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : includeReferencedKeys ? graph.keys() : keys) {
+            result.put(key, getPropertyValue(key, source));
+        }
+        return result;
+    }
+
+    private void resolveInParallel(List<List<String>> levels, PropertySource source) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (List<String> level : levels) {
+                pool.invoke(new ResolveKeysTask(level, source));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void throwCircularDefinitionException(List<List<String>> cycles) {
+        StringBuilder buffer = new StringBuilder("Circular property definition detected: \n");
+        for (List<String> cycle : cycles) {
+            buffer.append(String.join(" --> ", cycle)).append('\n');
+        }
+        throw new PropertyCircularDefinitionException(buffer.toString());
+    }
+
+    /**
+     * Looks up the key, that the frame currently waits for. The value is accepted by the frame right away, if it
+     * is already known. Otherwise, the frame for the referenced property is pushed on top of the stack.
+     */
+    private void lookupPendingKey(Frame frame, Deque<Frame> stack, CircularDefinitionPreventer circularDefinitionPreventer, PropertySource source) {
+        expandedPlaceholders.increment();
+        if (frame.pendingKey.isEmpty()) {
+            frame.accept(null);
+            return;
+        }
+        String value = beginLookup(frame.pendingKey, stack, circularDefinitionPreventer, source);
+        if (stack.peek() == frame) {
+            frame.accept(value);
+        } else {
+            frame.awaiting = true;
+        }
+    }
+
+    /**
+     * @return the value of the key if it is already resolved, does not need resolution, or is not defined at all (null).
+     *         Otherwise, pushes the new {@link Frame} for the key on top of the stack, and returns null
      */
-    private String getPropertyValue(String key, Properties mavenProjectProperties, Properties environment, CircularDefinitionPreventer circularDefinitionPreventer) {
+    private String beginLookup(String key, Deque<Frame> stack, CircularDefinitionPreventer circularDefinitionPreventer, PropertySource source) {
+        String alreadyResolved = resolvedValues.get(key);
+        if (alreadyResolved != null) {
+            cacheHits.increment();
+            return alreadyResolved;
+        }
 
         if (circularDefinitionPreventer.isPropertyAlreadyVisited(key)) {
-            circularDefinitionPreventer.throwCircularDefinitionException();
+            circularDefinitionPreventer.throwCircularDefinitionException(key);
         }
 
-        String rawValue = fromPropertiesThenSystemThenEnvironment(key, mavenProjectProperties, environment);
+        ValueTemplate template = templateOf(key, source);
 
-        if (StringUtils.isEmpty(rawValue)) {
+        if (template == null) {
             return null;
         }
 
-        ExpansionBuffer buffer = new ExpansionBuffer(rawValue);
-        String newKey;
+        if (template.isConstant()) {
+            resolvedValues.put(key, template.getRawValue());
+            return template.getRawValue();
+        }
 
-        while ((newKey = buffer.extractNextPropertyKey()) != null) {
-            buffer.moveResolvedPartToNextProperty();
-            String newValue = getPropertyValue(newKey, mavenProjectProperties, environment, circularDefinitionPreventer.cloneWithAdditionalKey(key));
-            if (newValue == null) {
-                buffer.add("${" + newKey + "}");
-            } else {
-                buffer.add(newValue);
-            }
+        circularDefinitionPreventer.enter(key);
+        stack.push(new Frame(key, template.getSegments(), template.getRawValue().length()));
+        return null;
+    }
+
+    private ValueTemplate templateOf(String key, PropertySource source) {
+        String rawValue = source.getProperty(key);
+        return rawValue == null || rawValue.isEmpty() ? null : templates.get(rawValue);
+    }
+
+    /**
+     * Resolves a range of independent keys, splitting it in halves while it is large enough
+     */
+    private final class ResolveKeysTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<String> keys;
+
+        private final transient PropertySource source;
+
+        private ResolveKeysTask(List<String> keys, PropertySource source) {
+            this.keys = keys;
+            this.source = source;
         }
 
-        return buffer.getFullyResolved();
+        @Override
+        protected void compute() {
+            if (keys.size() <= MIN_KEYS_PER_TASK) {
+                keys.forEach(key -> getPropertyValue(key, source));
+                return;
+            }
+            int middle = keys.size() / 2;
+            invokeAll(
+              new ResolveKeysTask(keys.subList(0, middle), source),
+              new ResolveKeysTask(keys.subList(middle, keys.size()), source)
+            );
+        }
     }
 
-    private String fromPropertiesThenSystemThenEnvironment( String key, Properties properties, Properties environment ) {
-        String value = StringUtils.defaultIfEmpty(
-          properties.getProperty(key),
-          System.getProperty(key)
-        );
+    /**
+     * The value (or the key of a nested reference) that is being expanded
+     */
+    private static final class Frame {
+
+        /**
+         * The key of the property, which value is expanded, null if the frame expands the key of a nested reference
+         */
+        private final String key;
+
+        private final List<Segment> segments;
 
-        // try environment variable
-        if ( value == null && key.startsWith( "env." ) && environment != null ) {
-            value = environment.getProperty( key.substring( 4 ) );
+        private final StringBuilder buffer;
+
+        private int position;
+
+        /**
+         * The key of the reference at the current position, null if the key itself is not evaluated yet
+         */
+        private String pendingKey;
+
+        /**
+         * Whether the frame waits for the frame above it in the stack to complete
+         */
+        private boolean awaiting;
+
+        private Frame(String key, List<Segment> segments, int expectedLength) {
+            this.key = key;
+            this.segments = segments;
+            this.buffer = new StringBuilder(expectedLength);
         }
 
-        return value;
+        private void accept(String referencedValue) {
+            if (referencedValue == null) {
+                buffer.append("${").append(pendingKey).append('}');
+            } else {
+                buffer.append(referencedValue);
+            }
+            pendingKey = null;
+            position++;
+        }
     }
 }
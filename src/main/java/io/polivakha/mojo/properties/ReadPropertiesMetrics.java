@@ -0,0 +1,151 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counters of a single execution of the read-project-properties goal. All the methods are safe to be
+ * called from multiple threads.
+ */
+final class ReadPropertiesMetrics {
+
+    /**
+     * The phases of the execution, that are timed separately
+     */
+    enum Phase {
+        SCAN("scan"),
+        PARSE("parse"),
+        URL_FETCH("urlFetch"),
+        RESOLVE("resolve");
+
+        private final String jsonName;
+
+        Phase(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    /**
+     * The counted events of the execution
+     */
+    enum Counter {
+        FILES_SCANNED("filesScanned"),
+        DIRECTORIES_LISTED("directoriesListed"),
+        SCAN_INDEX_HITS("scanIndexHits"),
+        FILES_MATCHED("filesMatched"),
+        RESOURCES_LOADED("resourcesLoaded"),
+        RESOURCES_REUSED("resourcesReused"),
+        BYTES_READ("bytesRead"),
+        KEYS_LOADED("keysLoaded"),
+        KEYS_OVERRIDDEN("keysOverridden"),
+        PARSE_CACHE_HITS("parseCacheHits"),
+        URL_CACHE_HITS("urlCacheHits"),
+        PLACEHOLDERS_EXPANDED("placeholdersExpanded"),
+        MAX_CHAIN_DEPTH("maxChainDepth"),
+        CACHE_HITS("cacheHits");
+
+        private final String jsonName;
+
+        Counter(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    void addTime(Phase phase, long nanos) {
+        phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * @param phase the phase that started
+     * @param startNanos the value of {@link System#nanoTime()} at the start of the phase
+     */
+    void addTimeSince(Phase phase, long startNanos) {
+        addTime(phase, System.nanoTime() - startNanos);
+    }
+
+    void add(Counter counter, long delta) {
+        counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    void max(Counter counter, long value) {
+        counters.accumulateAndGet(counter.ordinal(), value, Math::max);
+    }
+
+    long get(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    long getMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase.ordinal()));
+    }
+
+    /**
+     * @return one line, human-readable summary of the execution
+     */
+    String summary() {
+        return String.format(Locale.ROOT,
+          "Loaded %d keys (%d overridden) from %d resources (%d reused, %d files and %d URLs cached), %d bytes; "
+            + "scanned %d files, %d matched, listed %d directories (%d more unchanged); "
+            + "expanded %d placeholders, max chain depth %d, %d cache hits; "
+            + "scan %d ms, parse %d ms, url fetch %d ms, resolve %d ms",
+          get(Counter.KEYS_LOADED), get(Counter.KEYS_OVERRIDDEN), get(Counter.RESOURCES_LOADED), get(Counter.RESOURCES_REUSED), get(Counter.PARSE_CACHE_HITS), get(Counter.URL_CACHE_HITS), get(Counter.BYTES_READ),
+          get(Counter.FILES_SCANNED), get(Counter.FILES_MATCHED), get(Counter.DIRECTORIES_LISTED), get(Counter.SCAN_INDEX_HITS),
+          get(Counter.PLACEHOLDERS_EXPANDED), get(Counter.MAX_CHAIN_DEPTH), get(Counter.CACHE_HITS),
+          getMillis(Phase.SCAN), getMillis(Phase.PARSE), getMillis(Phase.URL_FETCH), getMillis(Phase.RESOLVE)
+        );
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"phasesMillis\": {");
+        for (Phase phase : Phase.values()) {
+            json.append(phase.ordinal() == 0 ? "\n" : ",\n")
+              .append("    \"").append(phase.jsonName).append("\": ").append(getMillis(phase));
+        }
+        json.append("\n  },\n  \"counters\": {");
+        for (Counter counter : Counter.values()) {
+            json.append(counter.ordinal() == 0 ? "\n" : ",\n")
+              .append("    \"").append(counter.jsonName).append("\": ").append(get(counter));
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    void writeJson(File reportFile) throws IOException {
+        File parent = reportFile.getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.write(reportFile.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -22,11 +22,23 @@ package io.polivakha.mojo.properties;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -37,10 +49,24 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 
+import io.polivakha.mojo.properties.exception.PropertyCircularDefinitionException;
+import io.polivakha.mojo.properties.loader.ConcurrentPropertiesLoader;
+import io.polivakha.mojo.properties.loader.LoadedResource;
+import io.polivakha.mojo.properties.loader.ParseCache;
+import io.polivakha.mojo.properties.loader.ParsedProperties;
+import io.polivakha.mojo.properties.loader.ResourceContext;
+import io.polivakha.mojo.properties.loader.ResourceProvider;
+import io.polivakha.mojo.properties.loader.ResourceProviders;
+import io.polivakha.mojo.properties.loader.UrlFetcher;
 import io.polivakha.mojo.properties.models.FileResource;
 import io.polivakha.mojo.properties.models.Resource;
 import io.polivakha.mojo.properties.models.UrlResource;
+import io.polivakha.mojo.properties.source.EnvironmentPropertySource;
+import io.polivakha.mojo.properties.source.PropertySource;
+import io.polivakha.mojo.properties.source.PropertySourceChain;
+import io.polivakha.mojo.properties.source.SnapshotPropertySource;
 import io.polivakha.mojo.properties.utils.PathParser;
+import io.polivakha.mojo.properties.utils.ScanIndex;
 
 /**
  * The read-project-properties goal reads property files and URLs and stores the properties as project properties. It
@@ -68,6 +94,16 @@ public class ReadPropertiesMojo extends AbstractMojo {
 
     private final PathParser pathParser;
 
+    /**
+     * Values compiled while loading the resources, reused later during the resolution
+     */
+    private final TemplateCache templates = new TemplateCache();
+
+    /**
+     * Keys of the properties loaded by this execution, including the {@link #keyPrefix}
+     */
+    private final Set<String> loadedKeys = new LinkedHashSet<>();
+
     public ReadPropertiesMojo() {
         this.pathParser = new PathParser();
     }
@@ -88,6 +124,81 @@ public class ReadPropertiesMojo extends AbstractMojo {
         this.includes = includes;
     }
 
+    /**
+     * Ant path patterns of the files, that are skipped even if they match the {@link #includes}. The pattern ending with
+     * <code>**</code>, like <code>**&#47;node_modules/**</code>, excludes the whole matching directories, so they are not
+     * even walked.
+     */
+    @Parameter( property = "properties.excludes" )
+    private String[] excludes = new String[0];
+
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+
+    /**
+     * Maximal number of directory levels, that are walked below the fixed part of each of the {@link #includes} patterns
+     */
+    @Parameter( defaultValue = "2147483647", property = "properties.includesMaxDepth" )
+    private int includesMaxDepth = Integer.MAX_VALUE;
+
+    /**
+     * If the symbolic links are followed while searching the files by the {@link #includes} patterns. The links that lead
+     * back to their own parent directories are skipped.
+     */
+    @Parameter( defaultValue = "true", property = "properties.includesFollowLinks" )
+    private boolean includesFollowLinks = true;
+
+    /**
+     * If true, the files and directories ignored by the <code>.gitignore</code> and <code>.ignore</code> files are skipped
+     * while searching the files by the {@link #includes} patterns. The ignored directories, like <code>target</code> or
+     * <code>node_modules</code>, are not walked at all.
+     */
+    @Parameter( defaultValue = "false", property = "properties.useIgnoreFiles" )
+    private boolean useIgnoreFiles;
+
+    public void setUseIgnoreFiles(boolean useIgnoreFiles) {
+        this.useIgnoreFiles = useIgnoreFiles;
+    }
+
+    /**
+     * Number of threads, that walk the directories while searching the files by the {@link #includes} patterns. The found
+     * files, and the order they are loaded in, do not depend on this setting.
+     */
+    @Parameter( defaultValue = "1", property = "properties.includesParallelism" )
+    private int includesParallelism = 1;
+
+    public void setIncludesParallelism(int includesParallelism) {
+        this.includesParallelism = includesParallelism;
+    }
+
+    /**
+     * If true, the directories walked while searching the files by the {@link #includes} patterns are indexed in
+     * {@link #scanIndexFile}, together with their modification times. The next build then lists only the directories
+     * modified since, and takes the content of the rest from the index.
+     */
+    @Parameter( defaultValue = "false", property = "properties.useScanIndex" )
+    private boolean useScanIndex;
+
+    @Parameter( defaultValue = "${project.build.directory}/properties-maven-plugin/${mojoExecution.executionId}-scan-index.bin", property = "properties.scanIndexFile" )
+    private File scanIndexFile;
+
+    public void setUseScanIndex(boolean useScanIndex) {
+        this.useScanIndex = useScanIndex;
+    }
+
+    public void setScanIndexFile(File scanIndexFile) {
+        this.scanIndexFile = scanIndexFile;
+    }
+
+    public void setIncludesMaxDepth(int includesMaxDepth) {
+        this.includesMaxDepth = includesMaxDepth;
+    }
+
+    public void setIncludesFollowLinks(boolean includesFollowLinks) {
+        this.includesFollowLinks = includesFollowLinks;
+    }
+
     /**
      * The URLs that will be used when reading properties. These may be non-standard URLs of the form
      * <code>classpath:com/company/resource.properties</code>. Note that the type is not <code>URL</code> for this
@@ -96,6 +207,24 @@ public class ReadPropertiesMojo extends AbstractMojo {
     @Parameter
     private String[] urls = new String[0];
 
+    public void setUrls( String[] urls ) {
+        this.urls = urls == null ? new String[0] : urls;
+    }
+
+    /**
+     * The locations of the resources of any kind, read after the {@link #files}, {@link #urls} and {@link #includes}.
+     * The kind of the resource is picked by the scheme of the location: <code>file:</code>, <code>http:</code>,
+     * <code>https:</code>, <code>ftp:</code>, <code>jar:</code>, <code>classpath:</code> and <code>glob:</code> are
+     * understood out of the box, and the location without the scheme is the path of the file. More schemes can be added
+     * by the {@link ResourceProvider}s, registered in the dependencies of the plugin.
+     */
+    @Parameter( property = "properties.locations" )
+    private String[] locations = new String[0];
+
+    public void setLocations( String[] locations ) {
+        this.locations = locations == null ? new String[0] : locations;
+    }
+
     /**
      * If the plugin should be quiet if any of the files was not found
      */
@@ -127,90 +256,355 @@ public class ReadPropertiesMojo extends AbstractMojo {
     }
 
     /**
-     * Used for resolving property placeholders.
+     * Number of threads used to resolve the placeholders in the loaded properties. The properties that do not depend
+     * on each other are resolved in parallel, which pays off only for really large sets of properties. The resolved
+     * values do not depend on this setting.
      */
-    private final PropertyResolver resolver = new PropertyResolver();
+    @Parameter( defaultValue = "1", property = "properties.resolveThreads" )
+    private int resolveThreads = 1;
+
+    public void setResolveThreads(int resolveThreads) {
+        this.resolveThreads = resolveThreads;
+    }
+
+    /**
+     * If true, only the properties loaded by this execution, and the properties they transitively reference, are resolved
+     * and written back into the project. Otherwise, all the project properties are resolved, including the ones inherited
+     * from the POM, that this execution has never loaded.
+     */
+    @Parameter( defaultValue = "false", property = "properties.resolveLoadedPropertiesOnly" )
+    private boolean resolveLoadedPropertiesOnly;
+
+    public void setResolveLoadedPropertiesOnly(boolean resolveLoadedPropertiesOnly) {
+        this.resolveLoadedPropertiesOnly = resolveLoadedPropertiesOnly;
+    }
+
+    /**
+     * If true, the timings and counters of the execution are also written as JSON into {@link #metricsReportFile}.
+     * The one line summary is logged anyway.
+     */
+    @Parameter( defaultValue = "false", property = "properties.writeMetricsReport" )
+    private boolean writeMetricsReport;
+
+    @Parameter( defaultValue = "${project.build.directory}/properties-maven-plugin/${mojoExecution.executionId}-metrics.json" )
+    private File metricsReportFile;
+
+    public void setWriteMetricsReport(boolean writeMetricsReport) {
+        this.writeMetricsReport = writeMetricsReport;
+    }
+
+    public void setMetricsReportFile(File metricsReportFile) {
+        this.metricsReportFile = metricsReportFile;
+    }
+
+    /**
+     * Number of threads used to open and parse the files and URLs. The resources are still merged into the project
+     * properties in the declared order, so the later resource overrides the earlier ones exactly as with a single thread.
+     */
+    @Parameter( defaultValue = "1", property = "properties.loadThreads" )
+    private int loadThreads = 1;
+
+    public void setLoadThreads(int loadThreads) {
+        this.loadThreads = loadThreads;
+    }
+
+    /**
+     * If true, the files found by the {@link #includes} patterns start loading on the {@link #loadThreads} as soon as
+     * they are found, while the search goes on, instead of after the search ends. The files are still merged in the
+     * same order, so the result does not depend on this setting. Has no effect with a single load thread.
+     * <p>
+     * As the files are merged only after the search ends, the parsed properties of all the found files are held in
+     * memory at once, rather than those of a few files ahead of the one being merged.
+     */
+    @Parameter( defaultValue = "false", property = "properties.pipelineIncludes" )
+    private boolean pipelineIncludes;
+
+    public void setPipelineIncludes(boolean pipelineIncludes) {
+        this.pipelineIncludes = pipelineIncludes;
+    }
+
+    /**
+     * Encoding of the properties files and URLs, either <code>ISO-8859-1</code>, as {@link Properties#load(InputStream)}
+     * assumes, or <code>UTF-8</code>. The <code>&#92;uXXXX</code> escapes are understood with both encodings.
+     */
+    @Parameter( defaultValue = "ISO-8859-1", property = "properties.encoding" )
+    private String encoding = "ISO-8859-1";
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * If true, the parsed property files are cached on disk between the builds, in {@link #parseCacheDirectory}. The files
+     * that have not changed since the previous build are then loaded from the cache instead of being parsed again. Only the
+     * files are cached, never the URLs.
+     */
+    @Parameter( defaultValue = "false", property = "properties.useParseCache" )
+    private boolean useParseCache;
+
+    @Parameter( defaultValue = "${project.build.directory}/properties-maven-plugin/parse-cache", property = "properties.parseCacheDirectory" )
+    private File parseCacheDirectory;
+
+    public void setUseParseCache(boolean useParseCache) {
+        this.useParseCache = useParseCache;
+    }
+
+    public void setParseCacheDirectory(File parseCacheDirectory) {
+        this.parseCacheDirectory = parseCacheDirectory;
+    }
+
+    /**
+     * Directory, where the responses of the HTTP(S) {@link #urls} are cached between the builds. The cached responses are
+     * revalidated with the conditional GET, and used as is in offline mode, or if the server cannot be reached.
+     */
+    @Parameter( defaultValue = "${settings.localRepository}/.cache/properties-maven-plugin/urls", property = "properties.urlCacheDirectory" )
+    private File urlCacheDirectory;
+
+    @Parameter( defaultValue = "${settings.offline}", readonly = true )
+    private boolean offline;
+
+    public void setUrlCacheDirectory(File urlCacheDirectory) {
+        this.urlCacheDirectory = urlCacheDirectory;
+    }
+
+    void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    /**
+     * Maximal number of {@link #urls} fetched at the same time. The requests to the same server share a single connection
+     * if the server supports HTTP/2.
+     */
+    @Parameter( defaultValue = "8", property = "properties.urlConcurrency" )
+    private int urlConcurrency = 8;
+
+    /**
+     * Timeout of connecting to the server of the URL, in milliseconds
+     */
+    @Parameter( defaultValue = "10000", property = "properties.urlConnectTimeout" )
+    private int urlConnectTimeout = 10000;
+
+    /**
+     * Timeout of fetching the URL, from sending the request to receiving the complete response, in milliseconds
+     */
+    @Parameter( defaultValue = "30000", property = "properties.urlRequestTimeout" )
+    private int urlRequestTimeout = 30000;
+
+    /**
+     * How many times the URL is fetched again, if the server cannot be reached or responds with HTTP 429 or 5xx. The retries
+     * are delayed by 0.5, 1, 2... seconds.
+     */
+    @Parameter( defaultValue = "2", property = "properties.urlRetries" )
+    private int urlRetries = 2;
+
+    public void setUrlConcurrency(int urlConcurrency) {
+        this.urlConcurrency = urlConcurrency;
+    }
+
+    public void setUrlConnectTimeout(int urlConnectTimeout) {
+        this.urlConnectTimeout = urlConnectTimeout;
+    }
+
+    public void setUrlRequestTimeout(int urlRequestTimeout) {
+        this.urlRequestTimeout = urlRequestTimeout;
+    }
+
+    public void setUrlRetries(int urlRetries) {
+        this.urlRetries = urlRetries;
+    }
+
+    private final ReadPropertiesMetrics metrics = new ReadPropertiesMetrics();
 
     /** {@inheritDoc} */
     public void execute() throws MojoExecutionException, MojoFailureException {
         setKeyPrefix();
         if ( !skipLoadProperties ) {
-            loadFiles();
-            loadUrls();
-            loadFilesByPattern();
+            try ( ConcurrentPropertiesLoader loader = createLoader() ) {
+                List<Resource> resources = new ArrayList<>();
+                collectFiles( resources );
+                collectUrls( resources );
+                collectFilesByPattern( resources, loader );
+                collectLocations( resources );
+                loadResources( loader, resources );
+            }
             resolveProperties();
+            reportMetrics();
         } else {
             getLog().warn( "The properties are ignored" );
         }
     }
 
-    private void loadFiles() throws MojoExecutionException {
+    private void reportMetrics() throws MojoExecutionException {
+        metrics.add( ReadPropertiesMetrics.Counter.FILES_SCANNED, pathParser.getScannedFilesCount() );
+        metrics.add( ReadPropertiesMetrics.Counter.DIRECTORIES_LISTED, pathParser.getListedDirectoriesCount() );
+        getLog().info( metrics.summary() );
+
+        if ( writeMetricsReport ) {
+            try {
+                metrics.writeJson( metricsReportFile );
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( "Error writing metrics report to " + metricsReportFile, e );
+            }
+        }
+    }
+
+    private void collectFiles( List<Resource> resources ) {
         for ( File file : files ) {
-            load( new FileResource( file ) );
+            resources.add( new FileResource( file ) );
         }
     }
 
-    private void loadFilesByPattern() throws MojoExecutionException {
+    private void collectFilesByPattern( List<Resource> resources, ConcurrentPropertiesLoader loader ) throws MojoExecutionException, MojoFailureException {
         if (includes == null) {
             return;
         }
 
+        try {
+            pathParser.setMaxDepth(includesMaxDepth);
+            pathParser.setParallelism(includesParallelism);
+        } catch (IllegalArgumentException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+        pathParser.setFollowLinks(includesFollowLinks);
+        pathParser.setUseIgnoreFiles(useIgnoreFiles);
+
         for (String antPattern : includes) {
             if (antPattern == null || antPattern.isEmpty()) {
                 throw new MojoExecutionException("Provided <pattern/> element value is empty. Please, put corresponding ant path pattern in this element");
             }
+        }
 
-            try (Stream<Path> pathStream = pathParser.streamFilesMatchingAntPath(antPattern)) {
-
-                List<FileResource> fileResources = pathStream.map(Path::toFile)
-                  .peek(it -> getLog().debug(String.format("Found potential properties file '%s' by ant path pattern : '%s'", it, antPattern)))
-                  .map(FileResource::new)
-                  .collect(Collectors.toList());
-
-                for (FileResource fileResource : fileResources) {
-                    loadProperties(fileResource);
-                }
+        long scanStart = System.nanoTime();
+        ScanIndex scanIndex = useScanIndex ? ScanIndex.load(scanIndexFile.toPath(), includesFollowLinks) : null;
+        pathParser.setScanIndex(scanIndex);
+        Map<Path, FileResource> preloadedFiles = new ConcurrentHashMap<>();
+        Consumer<Path> listener = !pipelineIncludes ? path -> {} : path -> {
+            FileResource resource = new FileResource(path.toFile());
+            preloadedFiles.put(path, resource);
+            loader.preload(resource);
+        };
+        List<List<Path>> matchedFiles;
+        try {
+            matchedFiles = pathParser.findFilesMatchingAntPaths(Arrays.asList(includes), excludes == null ? List.of() : Arrays.asList(excludes), listener);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while traversing file tree to find properties files by ant pattern", e);
+        }
+        if (scanIndex != null) {
+            try {
+                scanIndex.save();
             } catch (IOException e) {
-                throw new MojoExecutionException("Error while traversing file tree to find properties files by ant pattern", e);
+                getLog().warn("Could not save the scan index to " + scanIndexFile + ": " + e.getMessage());
+            }
+            metrics.add(ReadPropertiesMetrics.Counter.SCAN_INDEX_HITS, scanIndex.getHitsCount());
+        }
+        metrics.addTimeSince(ReadPropertiesMetrics.Phase.SCAN, scanStart);
+
+        for (int i = 0; i < includes.length; i++) {
+            String antPattern = includes[i];
+            for (Path path : matchedFiles.get(i)) {
+                getLog().debug(String.format("Found potential properties file '%s' by ant path pattern : '%s'", path, antPattern));
+                FileResource preloaded = preloadedFiles.remove(path);
+                resources.add(preloaded != null ? preloaded : new FileResource(path.toFile()));
             }
+            metrics.add(ReadPropertiesMetrics.Counter.FILES_MATCHED, matchedFiles.get(i).size());
         }
     }
 
-    private void loadUrls() throws MojoExecutionException {
+    private void collectUrls( List<Resource> resources ) throws MojoExecutionException {
         for ( String url : urls ) {
-            load( new UrlResource( url ) );
+            resources.add( new UrlResource( url ) );
         }
     }
 
-    private void load( Resource resource ) throws MojoExecutionException {
-        if ( resource.canBeOpened() ) {
-            loadProperties( resource );
-        } else {
-            missing( resource );
+    private void collectLocations( List<Resource> resources ) throws MojoExecutionException, MojoFailureException {
+        if ( locations.length == 0 ) {
+            return;
         }
-    }
 
-    private void loadProperties( Resource resource ) throws MojoExecutionException {
+        ResourceProviders providers;
         try {
-            getLog().debug( "Loading properties from " + resource );
-
-            try ( InputStream stream = resource.getInputStream() ) {
-                Properties properties = new Properties();
-                properties.load( stream );
-                Properties projectProperties = project.getProperties();
-
-                for ( String key : properties.stringPropertyNames() ) {
-                    String propertyFinalName = keyPrefix + key;
-                    checkIsPropertyAlreadyDefined(projectProperties, propertyFinalName);
-                    projectProperties.put(propertyFinalName, properties.get( key ) );
-                }
+            providers = ResourceProviders.load( getClass().getClassLoader() );
+        } catch ( ServiceConfigurationError | IllegalStateException e ) {
+            throw new MojoFailureException( e.getMessage(), e );
+        }
+        ResourceContext context = new ResourceContext( pathParser );
+        for ( String location : locations ) {
+            long scanStart = System.nanoTime();
+            try {
+                resources.addAll( providers.resolve( location, context ) );
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( "Error resolving the resources of " + location, e );
             }
+            metrics.addTimeSince( ReadPropertiesMetrics.Phase.SCAN, scanStart );
+        }
+    }
+
+    private ConcurrentPropertiesLoader createLoader() throws MojoFailureException {
+        ConcurrentPropertiesLoader loader;
+        UrlFetcher urlFetcher = new UrlFetcher( urlCacheDirectory == null ? null : urlCacheDirectory.toPath(), offline );
+        Charset charset;
+        try {
+            charset = Charset.forName( encoding );
+            urlFetcher.setConcurrency( urlConcurrency );
+            urlFetcher.setRetries( urlRetries );
+            urlFetcher.setConnectTimeout( Duration.ofMillis( urlConnectTimeout ) );
+            urlFetcher.setRequestTimeout( Duration.ofMillis( urlRequestTimeout ) );
+            loader = new ConcurrentPropertiesLoader( loadThreads, charset );
+        } catch ( IllegalArgumentException e ) {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        if ( useParseCache ) {
+            loader.setParseCache( new ParseCache( parseCacheDirectory.toPath(), charset ) );
+        }
+        loader.setUrlFetcher( urlFetcher );
+        return loader;
+    }
 
-        } catch ( IOException e ) {
-            throw new MojoExecutionException( "Error reading properties from " + resource, e );
+    private void loadResources( ConcurrentPropertiesLoader loader, List<Resource> resources ) throws MojoExecutionException {
+        Iterator<LoadedResource> loadedResources = loader.load( resources );
+        while ( loadedResources.hasNext() ) {
+            mergeProperties( loadedResources.next() );
         }
     }
 
+    private void mergeProperties( LoadedResource loaded ) throws MojoExecutionException {
+        Resource resource = loaded.getResource();
+        metrics.addTime( resource instanceof UrlResource ? ReadPropertiesMetrics.Phase.URL_FETCH : ReadPropertiesMetrics.Phase.PARSE, loaded.getLoadNanos() );
+
+        if ( loaded.isMissing() ) {
+            missing( resource );
+            return;
+        }
+        if ( loaded.getFailure() != null ) {
+            throw new MojoExecutionException( "Error reading properties from " + resource, loaded.getFailure() );
+        }
+
+        if ( loaded.isStale() ) {
+            getLog().warn( "Could not fetch " + resource + ", using its cached content, that may be outdated" );
+        }
+        getLog().debug( "Loading properties from " + resource );
+        ParsedProperties properties = loaded.getProperties();
+        Properties projectProperties = project.getProperties();
+
+        for ( int i = 0; i < properties.size(); i++ ) {
+            String propertyFinalName = keyPrefix + properties.keyAt( i );
+            String value = properties.valueAt( i );
+            checkIsPropertyAlreadyDefined(projectProperties, propertyFinalName);
+            templates.get( value );
+            projectProperties.put( propertyFinalName, value );
+            loadedKeys.add( propertyFinalName );
+        }
+
+        metrics.increment( ReadPropertiesMetrics.Counter.RESOURCES_LOADED );
+        if ( loaded.isReused() ) {
+            metrics.increment( ReadPropertiesMetrics.Counter.RESOURCES_REUSED );
+        } else if ( loaded.isCached() ) {
+            metrics.increment( resource instanceof UrlResource ? ReadPropertiesMetrics.Counter.URL_CACHE_HITS : ReadPropertiesMetrics.Counter.PARSE_CACHE_HITS );
+        }
+        metrics.add( ReadPropertiesMetrics.Counter.BYTES_READ, loaded.getBytesRead() );
+        metrics.add( ReadPropertiesMetrics.Counter.KEYS_LOADED, properties.size() );
+    }
+
     private void setKeyPrefix() {
         if ( keyPrefix == null ) {
             keyPrefix = "";
@@ -218,7 +612,11 @@ public class ReadPropertiesMojo extends AbstractMojo {
     }
 
     private void checkIsPropertyAlreadyDefined(Properties definedProperties, String newPropertyKey) {
-        if (logOverridingProperties && getLog().isInfoEnabled() && definedProperties.containsKey(newPropertyKey) ) {
+        if ( !definedProperties.containsKey(newPropertyKey) ) {
+            return;
+        }
+        metrics.increment( ReadPropertiesMetrics.Counter.KEYS_OVERRIDDEN );
+        if (logOverridingProperties && getLog().isInfoEnabled() ) {
             getLog().info( String.format("Property %s is already defined. Value was overridden in Properties", newPropertyKey) );
         }
     }
@@ -232,36 +630,58 @@ public class ReadPropertiesMojo extends AbstractMojo {
     }
 
     private void resolveProperties() throws MojoExecutionException, MojoFailureException {
-        Properties environment = loadSystemEnvironmentPropertiesWhenDefined();
+        long start = System.nanoTime();
         Properties projectProperties = project.getProperties();
+        Collection<String> candidates = resolveLoadedPropertiesOnly ? loadedKeys : projectProperties.stringPropertyNames();
 
-        for (Object key : projectProperties.keySet()) {
-            projectProperties.setProperty( (String) key, getPropertyValue( (String) key, projectProperties, environment ) );
-        }
+        List<String> keys = candidates
+          .stream()
+          .filter(key -> needsResolution(projectProperties.getProperty(key)))
+          .collect(Collectors.toList());
+        Map<String, String> resolvedValues = resolve(keys, createPropertySource(projectProperties));
+
+        resolvedValues.forEach((key, value) -> {
+            String rawValue = projectProperties.getProperty(key);
+            if (value != null && rawValue != null && !rawValue.equals(value)) {
+                projectProperties.setProperty(key, value);
+            }
+        });
+        metrics.addTimeSince(ReadPropertiesMetrics.Phase.RESOLVE, start);
     }
 
-    private Properties loadSystemEnvironmentPropertiesWhenDefined() throws MojoExecutionException {
-
-        boolean useEnvVariables = project.getProperties()
-          .values()
-          .stream()
-          .anyMatch(o -> ((String) o).startsWith("${env."));
+    /**
+     * Values without any placeholders resolve to themselves, so they skip the resolver entirely. Empty values still
+     * go through it, since they may be defined by a system property.
+     */
+    private boolean needsResolution(String rawValue) {
+        return rawValue.isEmpty() || !templates.get(rawValue).isConstant();
+    }
 
-        Properties environment = null;
-        if ( useEnvVariables ) {
-            try {
-                environment = getSystemEnvVars();
-            } catch ( IOException e ) {
-                throw new MojoExecutionException( "Error getting system environment variables: ", e );
-            }
-        }
-        return environment;
+    /**
+     * The project and system properties are copied once, so that the lookups during the resolution do not contend for
+     * the locks of the underlying {@link Properties}. The environment is queried only if it is actually referenced.
+     */
+    private PropertySource createPropertySource(Properties projectProperties) {
+        return new PropertySourceChain(
+          SnapshotPropertySource.of(projectProperties),
+          SnapshotPropertySource.ofSystemProperties(),
+          new EnvironmentPropertySource(this::getSystemEnvVars)
+        );
     }
 
-    private String getPropertyValue( String propertyName, Properties mavenPropertiesFromResource, Properties processEnvironment) throws MojoFailureException {
+    private Map<String, String> resolve(List<String> keys, PropertySource source) throws MojoExecutionException, MojoFailureException {
         try {
-            return resolver.getPropertyValue(propertyName, mavenPropertiesFromResource, processEnvironment);
-        } catch (IllegalArgumentException e) {
+            PropertyResolver resolver = new PropertyResolver(resolveThreads, templates);
+            try {
+                return resolveLoadedPropertiesOnly ? resolver.resolveTransitively(keys, source) : resolver.resolveAll(keys, source);
+            } finally {
+                metrics.add(ReadPropertiesMetrics.Counter.PLACEHOLDERS_EXPANDED, resolver.getExpandedPlaceholdersCount());
+                metrics.add(ReadPropertiesMetrics.Counter.CACHE_HITS, resolver.getCacheHitsCount());
+                metrics.max(ReadPropertiesMetrics.Counter.MAX_CHAIN_DEPTH, resolver.getMaxChainDepth());
+            }
+        } catch (UncheckedIOException e) {
+            throw new MojoExecutionException( "Error getting system environment variables: ", e.getCause() );
+        } catch (IllegalArgumentException | PropertyCircularDefinitionException e) {
             throw new MojoFailureException(e.getMessage());
         }
     }
@@ -0,0 +1,245 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Directed graph of references between properties: there is an edge from property A to property B if the value
+ * of A contains the <code>${B}</code> placeholder. Only the references that are known before the evaluation are part
+ * of the graph, i.e. for the nested <code>${a.${b}}</code> reference only the edge to <code>b</code> is present.
+ * <p>
+ * The strongly connected components of the graph are computed with the Tarjan's algorithm, implemented without
+ * recursion, so that arbitrary deep reference chains can be analyzed. Tarjan's algorithm emits the components in
+ * reverse topological order, i.e. each property comes after all the properties it references.
+ */
+final class ReferenceGraph {
+
+    private static final int[] NO_SUCCESSORS = new int[0];
+
+    private final List<String> keys = new ArrayList<>();
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private final List<int[]> successors = new ArrayList<>();
+
+    private ReferenceGraph() {
+    }
+
+    /**
+     * Builds the graph of the given keys and everything they transitively reference
+     *
+     * @param roots keys to start from
+     * @param templates provides the compiled value of the key, or null if the key is not defined
+     * @return built graph
+     */
+    static ReferenceGraph build(Collection<String> roots, Function<String, ValueTemplate> templates) {
+        ReferenceGraph graph = new ReferenceGraph();
+        roots.forEach(graph::indexOf);
+
+        for (int node = 0; node < graph.keys.size(); node++) {
+            ValueTemplate template = templates.apply(graph.keys.get(node));
+            if (template == null || template.isConstant()) {
+                graph.successors.add(NO_SUCCESSORS);
+                continue;
+            }
+
+            graph.successors.add(template.getStaticReferences().stream().mapToInt(graph::indexOf).toArray());
+        }
+        return graph;
+    }
+
+    private int indexOf(String key) {
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = keys.size();
+            indexes.put(key, index);
+            keys.add(key);
+        }
+        return index;
+    }
+
+    /**
+     * @return all the keys of the graph: the roots it was built from, followed by the keys they transitively reference
+     */
+    List<String> keys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * @return strongly connected components of the graph in reverse topological order, i.e. the component
+     *         always goes after all the components it references. The first key of each component is the one
+     *         through which the component was entered during the traversal
+     */
+    List<List<String>> stronglyConnectedComponents() {
+        int size = keys.size();
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        int[] edgePosition = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        Arrays.fill(index, -1);
+
+        List<List<String>> components = new ArrayList<>();
+        int stackSize = 0;
+        int counter = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+
+            int callStackSize = 0;
+            index[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[callStackSize++] = root;
+
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+                int[] nodeSuccessors = successors.get(node);
+
+                if (edgePosition[node] < nodeSuccessors.length) {
+                    int next = nodeSuccessors[edgePosition[node]++];
+                    if (index[next] == -1) {
+                        index[next] = lowLink[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callStack[callStackSize++] = next;
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                callStackSize--;
+                if (callStackSize > 0) {
+                    int parent = callStack[callStackSize - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+
+                if (lowLink[node] == index[node]) {
+                    List<String> component = new ArrayList<>();
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component.add(keys.get(member));
+                    } while (member != node);
+                    Collections.reverse(component);
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Finds one circular chain of references per each cyclic strongly connected component
+     *
+     * @param components the components of this graph, as returned by {@link #stronglyConnectedComponents()}
+     * @return list of cycles, each cycle starts and ends with the same key, empty if there are no cycles
+     */
+    List<List<String>> findCycles(List<List<String>> components) {
+        List<List<String>> cycles = new ArrayList<>();
+        for (List<String> component : components) {
+            int first = indexes.get(component.get(0));
+            if (component.size() == 1 && !references(first, first)) {
+                continue;
+            }
+            cycles.add(cycleWithin(new LinkedHashSet<>(component), first));
+        }
+        return cycles;
+    }
+
+    /**
+     * Splits the acyclic graph into levels, so that the keys of the same level do not reference each other, and
+     * all the keys they reference belong to previous levels. The keys of the same level can therefore be evaluated
+     * independently, once all the previous levels are evaluated.
+     *
+     * @param components the components of this graph, as returned by {@link #stronglyConnectedComponents()}
+     * @return keys grouped by level, starting with the keys that do not reference any other key
+     */
+    List<List<String>> levels(List<List<String>> components) {
+        int[] levelOf = new int[keys.size()];
+        List<List<String>> levels = new ArrayList<>();
+
+        for (List<String> component : components) {
+            int level = 0;
+            for (String key : component) {
+                for (int next : successors.get(indexes.get(key))) {
+                    level = Math.max(level, levelOf[next] + 1);
+                }
+            }
+            for (String key : component) {
+                levelOf[indexes.get(key)] = level;
+            }
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).addAll(component);
+        }
+        return levels;
+    }
+
+    private List<String> cycleWithin(Set<String> component, int start) {
+        Map<Integer, Integer> positions = new HashMap<>();
+        List<String> path = new ArrayList<>();
+        int current = start;
+
+        while (!positions.containsKey(current)) {
+            positions.put(current, path.size());
+            path.add(keys.get(current));
+            current = firstSuccessorWithin(component, current);
+        }
+
+        List<String> cycle = new ArrayList<>(path.subList(positions.get(current), path.size()));
+        cycle.add(keys.get(current));
+        return cycle;
+    }
+
+    private int firstSuccessorWithin(Set<String> component, int node) {
+        for (int next : successors.get(node)) {
+            if (component.contains(keys.get(next))) {
+                return next;
+            }
+        }
+        throw new IllegalStateException("Property " + keys.get(node) + " does not belong to a cycle");
+    }
+
+    private boolean references(int from, int to) {
+        for (int next : successors.get(from)) {
+            if (next == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled {@link ValueTemplate}s by raw value. The values are compiled while the resources are being loaded,
+ * and then reused during the resolution, so that every distinct raw value is scanned exactly once per execution.
+ */
+final class TemplateCache {
+
+    private final Map<String, ValueTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param rawValue raw property value, must not be null
+     * @return compiled template of the value
+     */
+    ValueTemplate get(String rawValue) {
+        ValueTemplate template = templates.get(rawValue);
+        if (template == null) {
+            template = ValueTemplate.compile(rawValue);
+            templates.putIfAbsent(rawValue, template);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,107 @@
+package io.polivakha.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.polivakha.mojo.properties.PlaceholderTokenizer.Segment;
+
+/**
+ * Immutable, compiled form of a raw property value: literal chunks of text and reference slots. The value is scanned
+ * only once, when the template is compiled, and then the template can be evaluated any number of times.
+ */
+final class ValueTemplate {
+
+    private final String rawValue;
+
+    private final List<Segment> segments;
+
+    private final List<String> staticReferences;
+
+    private ValueTemplate(String rawValue, List<Segment> segments, List<String> staticReferences) {
+        this.rawValue = rawValue;
+        this.segments = segments;
+        this.staticReferences = staticReferences;
+    }
+
+    /**
+     * @param rawValue raw property value, must not be null
+     * @return compiled template
+     */
+    static ValueTemplate compile(String rawValue) {
+        List<Segment> segments = PlaceholderTokenizer.tokenize(rawValue);
+        if (segments.size() <= 1 && (segments.isEmpty() || segments.get(0).isLiteral())) {
+            return new ValueTemplate(rawValue, Collections.emptyList(), Collections.emptyList());
+        }
+
+        Set<String> references = new LinkedHashSet<>();
+        collectStaticReferences(segments, references);
+        return new ValueTemplate(rawValue, Collections.unmodifiableList(segments), List.copyOf(references));
+    }
+
+    private static void collectStaticReferences(List<Segment> segments, Set<String> references) {
+        for (Segment segment : segments) {
+            if (segment.isLiteral()) {
+                continue;
+            }
+            String plainKey = segment.getPlainKey();
+            if (plainKey != null) {
+                references.add(plainKey);
+            } else {
+                collectStaticReferences(segment.getKeyParts(), references);
+            }
+        }
+    }
+
+    /**
+     * @return true if the value does not contain any placeholders, so it does not need to be resolved at all
+     */
+    boolean isConstant() {
+        return segments.isEmpty();
+    }
+
+    String getRawValue() {
+        return rawValue;
+    }
+
+    /**
+     * @return segments of the value, empty for the {@link #isConstant() constant} values
+     */
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return keys that are referenced by this value, and can be determined without evaluation, i.e. for the nested
+     *         <code>${a.${b}}</code> reference only <code>b</code> is returned
+     */
+    List<String> getStaticReferences() {
+        return staticReferences;
+    }
+
+    @Override
+    public String toString() {
+        return "ValueTemplate{" + "rawValue='" + rawValue + '\'' + ", constant=" + isConstant() + '}';
+    }
+}
@@ -1,7 +1,7 @@
 package io.polivakha.mojo.properties.loader;
 
 import java.util.List;
-import java.util.Properties;
+import java.util.function.BiConsumer;
 
 import io.polivakha.mojo.properties.models.Resource;
 
@@ -13,19 +13,16 @@ import io.polivakha.mojo.properties.models.Resource;
 public abstract class AbstractPropertiesLoader<RESOURCE> implements PropertiesLoader<RESOURCE> {
 
     @Override
-    public Properties loadProperties(List<RESOURCE> resources) {
-        Properties result = new Properties();
+    public void loadProperties(List<RESOURCE> resources, BiConsumer<String, String> sink) {
         for (RESOURCE resource : resources) {
-            Properties properties = loadInternally(resource);
-            result.putAll(properties);
+            loadInternally(resource, sink);
         }
-        return result;
     }
 
     /**
      * Method to be implemented by child classes, that will do the actual proeprties loading
-     * @param resources - abstract {@link Resource} from which the properties should be loaded
-     * @return loaded {@link Properties} object from provided {@link Resource}
+     * @param resource - abstract {@link Resource} from which the properties should be loaded
+     * @param sink - receives the properties loaded from provided {@link Resource}
      */
-    protected abstract Properties loadInternally(RESOURCE resources);
+    protected abstract void loadInternally(RESOURCE resource, BiConsumer<String, String> sink);
 }
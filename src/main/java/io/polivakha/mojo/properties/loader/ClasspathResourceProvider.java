@@ -0,0 +1,31 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import io.polivakha.mojo.properties.models.Resource;
+import io.polivakha.mojo.properties.models.UrlResource;
+
+/**
+ * Provides the resources of the plugin classpath, i.e. <code>classpath:config/app.properties</code>
+ */
+public class ClasspathResourceProvider implements ResourceProvider {
+
+    @Override
+    public Set<String> getSchemes() {
+        return Collections.singleton("classpath");
+    }
+
+    @Override
+    public List<Resource> resolve(String location, ResourceContext context) throws IOException {
+        try {
+            return Collections.singletonList(new UrlResource(location));
+        } catch (MojoExecutionException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
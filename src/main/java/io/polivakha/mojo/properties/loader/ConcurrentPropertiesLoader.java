@@ -0,0 +1,478 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+import io.polivakha.mojo.properties.models.UrlResource;
+import io.polivakha.mojo.properties.utils.CountingInputStream;
+
+/**
+ * {@link PropertiesLoader} that opens and parses the resources on a bounded pool of threads, but hands the results
+ * out strictly in the order of the resources. Therefore, merging the results gives exactly the same properties as
+ * loading the resources one by one: in case of conflict, the later resource wins.
+ * <p>
+ * Only a limited number of resources is loaded ahead of the one being consumed, so the memory footprint does not
+ * depend on the number of resources. The exception are the {@link #preload(Resource) preloaded} resources: their
+ * results are kept until they are consumed, so all of them can be held in memory at once. The large files are parsed
+ * through the memory mapping,
+ * see {@link PropertiesParser#parse(java.nio.channels.FileChannel)}.
+ */
+public class ConcurrentPropertiesLoader implements PropertiesLoader<Resource>, AutoCloseable {
+
+    private static final int RESOURCES_AHEAD_PER_THREAD = 4;
+
+    /**
+     * Files of at least this size are parsed through the memory mapping rather than the stream
+     */
+    static final long DEFAULT_MAPPING_THRESHOLD = 4 * 1024 * 1024;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    /**
+     * Each thread reuses the buffers of its own parser
+     */
+    private final ThreadLocal<PropertiesParser> parsers;
+
+    private final long mappingThreshold;
+
+    private ParseCache parseCache;
+
+    private UrlFetcher urlFetcher = new UrlFetcher(null, false);
+
+    /**
+     * Resources, that started loading before their position in the merge order was known, see {@link #preload(Resource)}
+     */
+    private final Map<Resource, Future<LoadedResource>> preloaded = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Semaphore preloadPermits;
+
+    /**
+     * @param threads number of threads loading the resources, 1 means that the resources are loaded by the caller thread
+     */
+    public ConcurrentPropertiesLoader(int threads) {
+        this(threads, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param threads number of threads loading the resources, 1 means that the resources are loaded by the caller thread
+     * @param charset encoding of the resources, see {@link PropertiesParser#isSupported(Charset)}
+     */
+    public ConcurrentPropertiesLoader(int threads, Charset charset) {
+        this(threads, charset, DEFAULT_MAPPING_THRESHOLD);
+    }
+
+    ConcurrentPropertiesLoader(int threads, Charset charset, long mappingThreshold) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads to load properties must be positive, but was " + threads);
+        }
+        if (!PropertiesParser.isSupported(charset)) {
+            throw new IllegalArgumentException("Unsupported encoding of properties " + charset + ", only UTF-8 and ISO-8859-1 are supported");
+        }
+        this.parsers = ThreadLocal.withInitial(() -> new PropertiesParser(charset));
+        this.executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, new LoaderThreadFactory());
+        this.window = threads * RESOURCES_AHEAD_PER_THREAD;
+        this.preloadPermits = new Semaphore(window);
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    /**
+     * @param parseCache cache of the parsed files to use, or null to always parse the files
+     */
+    public void setParseCache(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * @param urlFetcher fetches the {@link UrlResource}s, by default they are fetched without any caching. The fetcher
+     *                   is closed together with this loader
+     */
+    public void setUrlFetcher(UrlFetcher urlFetcher) {
+        this.urlFetcher = urlFetcher;
+    }
+
+    /**
+     * @throws UncheckedIOException if any of the resources could not be read. Missing resources are skipped
+     */
+    @Override
+    public void loadProperties(List<Resource> resources, BiConsumer<String, String> sink) {
+        Iterator<LoadedResource> loadedResources = load(resources);
+        while (loadedResources.hasNext()) {
+            LoadedResource loaded = loadedResources.next();
+            if (loaded.getFailure() != null) {
+                throw new UncheckedIOException("Error reading properties from " + loaded.getResource(), loaded.getFailure());
+            }
+            if (!loaded.isMissing()) {
+                loaded.getProperties().forEach(sink);
+            }
+        }
+    }
+
+    /**
+     * Starts loading the given resources
+     *
+     * @param resources resources to load
+     * @return the loaded resources, in the same order as the given resources. The failures to read the resource
+     *         are not thrown, but returned as part of the {@link LoadedResource}, so the caller can report them
+     *         in order
+     */
+    public Iterator<LoadedResource> load(List<? extends Resource> resources) {
+        return new OrderedResults(resources);
+    }
+
+    /**
+     * Starts loading the resource in background, before the order of the resources is known, i.e. while the files are
+     * still being searched. Once the resource is passed to {@link #load(List)}, its result is taken as is, so that the
+     * resources are still merged in the order of that list. At most as many resources as the loader loads ahead are
+     * being loaded at the same time, the caller is blocked until some of them are loaded. The loaded properties are
+     * kept in memory until the resource is consumed, so preloading many resources before consuming any of them costs as
+     * much memory as all their properties take.
+     * <p>
+     * Does nothing, if the resources are loaded by the caller thread, or the resource is an {@link UrlResource}, as all
+     * the URLs are fetched concurrently anyway.
+     *
+     * @param resource resource to load, the same instance has to be passed to {@link #load(List)} later
+     */
+    public void preload(Resource resource) {
+        if (executor == null || resource instanceof UrlResource) {
+            return;
+        }
+        try {
+            preloadPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            preloaded.put(resource, executor.submit(() -> {
+                try {
+                    return loadResource(resource, null);
+                } finally {
+                    preloadPermits.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            preloadPermits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        urlFetcher.close();
+    }
+
+    /**
+     * @param fetch the content of the {@link UrlResource}, that is being fetched in background, or null to fetch it now
+     */
+    private LoadedResource loadResource(Resource resource, CompletableFuture<UrlFetcher.Fetched> fetch) {
+        long start = System.nanoTime();
+        if (resource instanceof UrlResource) {
+            return loadUrl((UrlResource) resource, fetch, start);
+        }
+        if (!resource.canBeOpened()) {
+            return LoadedResource.missing(resource, System.nanoTime() - start);
+        }
+
+        try {
+            if (resource instanceof FileResource) {
+                return loadFile((FileResource) resource, start);
+            }
+            try (CountingInputStream stream = new CountingInputStream(resource.getInputStream())) {
+                ParsedProperties properties = parsers.get().parse(stream);
+                return LoadedResource.loaded(resource, properties, stream.getCount(), System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            return LoadedResource.failed(resource, e, System.nanoTime() - start);
+        } catch (IllegalArgumentException e) {
+            return LoadedResource.failed(resource, new IOException(e.getMessage(), e), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The URL is fetched only once, rather than probed with {@link Resource#canBeOpened()} first
+     */
+    private LoadedResource loadUrl(UrlResource resource, CompletableFuture<UrlFetcher.Fetched> fetch, long start) {
+        if (resource.getUrl() == null) {
+            return LoadedResource.missing(resource, System.nanoTime() - start);
+        }
+        if (fetch == null) {
+            fetch = urlFetcher.fetchAsync(resource.getUrl());
+        }
+
+        try {
+            UrlFetcher.Fetched fetched = await(fetch, resource);
+            if (fetched.isMissing()) {
+                return LoadedResource.missing(resource, System.nanoTime() - start);
+            }
+            ParsedProperties properties = parsers.get().parse(new ByteArrayInputStream(fetched.getContent()));
+            return LoadedResource.fetched(resource, properties, fetched, System.nanoTime() - start);
+        } catch (IOException e) {
+            return LoadedResource.failed(resource, e, System.nanoTime() - start);
+        } catch (IllegalArgumentException e) {
+            return LoadedResource.failed(resource, new IOException(e.getMessage(), e), System.nanoTime() - start);
+        }
+    }
+
+    private LoadedResource loadFile(FileResource resource, long start) throws IOException {
+        Path file = resource.getFile().toPath();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        if (parseCache != null) {
+            ParsedProperties cached = parseCache.get(file, attributes);
+            if (cached != null) {
+                return LoadedResource.cached(resource, cached, System.nanoTime() - start);
+            }
+        }
+
+        ParsedProperties properties;
+        long bytesRead;
+        if (attributes.size() >= mappingThreshold) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                properties = parsers.get().parse(channel);
+                bytesRead = channel.size();
+            }
+        } else {
+            try (CountingInputStream stream = new CountingInputStream(resource.getInputStream())) {
+                properties = parsers.get().parse(stream);
+                bytesRead = stream.getCount();
+            }
+        }
+
+        if (parseCache != null) {
+            try {
+                parseCache.put(file, attributes, properties);
+            } catch (IOException e) {
+                // the cache is just an optimization, the file is parsed again next time
+            }
+        }
+        return LoadedResource.loaded(resource, properties, bytesRead, System.nanoTime() - start);
+    }
+
+    /**
+     * @return the fetched content
+     * @throws IOException the failure of the fetch
+     */
+    private static UrlFetcher.Fetched await(CompletableFuture<UrlFetcher.Fetched> fetch, Resource resource) throws IOException {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + resource);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Error fetching " + resource, cause);
+        }
+    }
+
+    /**
+     * Hands out the outcomes in the order of the resources. Each file or URL is loaded only once, no matter through how
+     * many resources, i.e. under how many {@link ResourceIdentity identities}, it is reached. Only the outcomes of the
+     * identities referenced more than once are retained, and only until the last of their resources is consumed.
+     */
+    final class OrderedResults implements Iterator<LoadedResource> {
+
+        private final List<? extends Resource> resources;
+
+        private final Deque<Pending> pending = new ArrayDeque<>();
+
+        /**
+         * All the remote URLs are fetched concurrently from the very beginning, as waiting for the response takes much
+         * longer than parsing it. Each URL is fetched once, even if several resources point to it
+         */
+        private final Map<Resource, CompletableFuture<UrlFetcher.Fetched>> fetches = new IdentityHashMap<>();
+
+        /**
+         * The identity of each resource, null if the resource can not be identified
+         */
+        private final Object[] identities;
+
+        /**
+         * How many resources of each identity, referenced by several resources, are not consumed yet
+         */
+        private final Map<Object, Integer> remainingReferences = new HashMap<>();
+
+        /**
+         * The outcomes of the identities referenced by several resources, until the last of them is consumed
+         */
+        private final Map<Object, Future<LoadedResource>> loadedByIdentity = new HashMap<>();
+
+        private int submitted;
+
+        private int consumed;
+
+        private OrderedResults(List<? extends Resource> resources) {
+            this.resources = resources;
+            this.identities = new Object[resources.size()];
+            for (int i = 0; i < identities.length; i++) {
+                identities[i] = ResourceIdentity.of(resources.get(i));
+                if (identities[i] != null) {
+                    remainingReferences.merge(identities[i], 1, Integer::sum);
+                }
+            }
+            remainingReferences.values().removeIf(count -> count == 1);
+
+            Map<Object, CompletableFuture<UrlFetcher.Fetched>> fetchesByIdentity = new HashMap<>();
+            for (int i = 0; i < identities.length; i++) {
+                URL url = resources.get(i) instanceof UrlResource ? ((UrlResource) resources.get(i)).getUrl() : null;
+                if (url != null && !ResourceIdentity.isFile(url)) {
+                    fetches.put(resources.get(i), fetchesByIdentity.computeIfAbsent(identities[i], identity -> urlFetcher.fetchAsync(url)));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return consumed < resources.size();
+        }
+
+        @Override
+        public LoadedResource next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (executor == null) {
+                submitted++;
+                return consume(start(consumed));
+            }
+
+            while (submitted < resources.size() && submitted - consumed < window) {
+                pending.add(start(submitted++));
+            }
+            return consume(pending.poll());
+        }
+
+        /**
+         * @return number of outcomes retained for the resources that are not consumed yet
+         */
+        int getRetainedCount() {
+            return loadedByIdentity.size();
+        }
+
+        private Pending start(int index) {
+            Resource resource = resources.get(index);
+            Object identity = identities[index];
+            boolean shared = identity != null && remainingReferences.containsKey(identity);
+            Future<LoadedResource> preloadedResult = preloaded.remove(resource);
+
+            if (shared && loadedByIdentity.containsKey(identity)) {
+                return new Pending(index, loadedByIdentity.get(identity), true);
+            }
+            Future<LoadedResource> result = preloadedResult != null ? preloadedResult : submit(resource, fetches.get(resource));
+            if (shared) {
+                loadedByIdentity.put(identity, result);
+            }
+            return new Pending(index, result, false);
+        }
+
+        private Future<LoadedResource> submit(Resource resource, CompletableFuture<UrlFetcher.Fetched> fetch) {
+            if (executor == null) {
+                return CompletableFuture.completedFuture(loadResource(resource, fetch));
+            }
+            return executor.submit(() -> loadResource(resource, fetch));
+        }
+
+        private LoadedResource consume(Pending next) {
+            Resource resource = resources.get(consumed++);
+            LoadedResource loaded = await(next.result, resource);
+
+            Object identity = identities[next.index];
+            if (identity != null && remainingReferences.computeIfPresent(identity, (key, count) -> count > 1 ? count - 1 : null) == null) {
+                loadedByIdentity.remove(identity);
+            }
+            return next.reused ? LoadedResource.reused(resource, loaded) : loaded;
+        }
+
+        private LoadedResource await(Future<LoadedResource> future, Resource resource) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading properties from " + resource, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Error loading properties from " + resource, cause);
+            }
+        }
+    }
+
+    /**
+     * The outcome of the resource, that is being loaded, or is taken from the first resource of the same identity
+     */
+    private static final class Pending {
+
+        private final int index;
+
+        private final Future<LoadedResource> result;
+
+        private final boolean reused;
+
+        private Pending(int index, Future<LoadedResource> result, boolean reused) {
+            this.index = index;
+            this.result = result;
+            this.reused = reused;
+        }
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "properties-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
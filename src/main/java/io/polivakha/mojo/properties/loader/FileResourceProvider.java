@@ -0,0 +1,28 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Provides the files by their paths, with optional <code>file:</code> prefix
+ */
+public class FileResourceProvider implements ResourceProvider {
+
+    private static final String PREFIX = "file:";
+
+    @Override
+    public Set<String> getSchemes() {
+        return Collections.singleton("file");
+    }
+
+    @Override
+    public List<Resource> resolve(String location, ResourceContext context) {
+        String path = location.regionMatches(true, 0, PREFIX, 0, PREFIX.length()) ? location.substring(PREFIX.length()) : location;
+        return Collections.singletonList(new FileResource(new File(path)));
+    }
+}
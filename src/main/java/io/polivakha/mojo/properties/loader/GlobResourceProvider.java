@@ -0,0 +1,33 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Provides all the files matching the ant path pattern, with optional <code>glob:</code> prefix,
+ * i.e. <code>glob:/etc/app/**&#47;*.properties</code>
+ */
+public class GlobResourceProvider implements ResourceProvider {
+
+    private static final String PREFIX = "glob:";
+
+    @Override
+    public Set<String> getSchemes() {
+        return Set.of("glob");
+    }
+
+    @Override
+    public List<Resource> resolve(String location, ResourceContext context) throws IOException {
+        String pattern = location.regionMatches(true, 0, PREFIX, 0, PREFIX.length()) ? location.substring(PREFIX.length()) : location;
+        try (Stream<Path> paths = context.getPathParser().streamFilesMatchingAntPath(pattern)) {
+            return paths.map(path -> new FileResource(path.toFile())).collect(Collectors.toList());
+        }
+    }
+}
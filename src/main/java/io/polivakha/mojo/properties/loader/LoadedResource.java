@@ -0,0 +1,135 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Outcome of loading the properties of a single {@link Resource}: either the loaded properties, or the information
+ * that the resource is missing, or the failure that happened while reading it.
+ */
+public final class LoadedResource {
+
+    private final Resource resource;
+
+    private final ParsedProperties properties;
+
+    private final IOException failure;
+
+    private final long bytesRead;
+
+    private final long loadNanos;
+
+    private final boolean cached;
+
+    private final boolean stale;
+
+    private final boolean reused;
+
+    private LoadedResource(Resource resource, ParsedProperties properties, IOException failure, long bytesRead, long loadNanos,
+                           boolean cached, boolean stale) {
+        this(resource, properties, failure, bytesRead, loadNanos, cached, stale, false);
+    }
+
+    private LoadedResource(Resource resource, ParsedProperties properties, IOException failure, long bytesRead, long loadNanos,
+                           boolean cached, boolean stale, boolean reused) {
+        this.resource = resource;
+        this.properties = properties;
+        this.failure = failure;
+        this.bytesRead = bytesRead;
+        this.loadNanos = loadNanos;
+        this.cached = cached;
+        this.stale = stale;
+        this.reused = reused;
+    }
+
+    static LoadedResource loaded(Resource resource, ParsedProperties properties, long bytesRead, long loadNanos) {
+        return new LoadedResource(resource, properties, null, bytesRead, loadNanos, false, false);
+    }
+
+    static LoadedResource cached(Resource resource, ParsedProperties properties, long loadNanos) {
+        return new LoadedResource(resource, properties, null, 0, loadNanos, true, false);
+    }
+
+    static LoadedResource fetched(Resource resource, ParsedProperties properties, UrlFetcher.Fetched fetched, long loadNanos) {
+        return new LoadedResource(resource, properties, null, fetched.getContent().length, loadNanos, fetched.isFromCache(), fetched.isStale());
+    }
+
+    static LoadedResource missing(Resource resource, long loadNanos) {
+        return new LoadedResource(resource, null, null, 0, loadNanos, false, false);
+    }
+
+    static LoadedResource failed(Resource resource, IOException failure, long loadNanos) {
+        return new LoadedResource(resource, null, failure, 0, loadNanos, false, false);
+    }
+
+    /**
+     * @param resource the resource having the same {@link ResourceIdentity} as the one already loaded
+     * @param original the outcome of loading the first resource of that identity
+     */
+    static LoadedResource reused(Resource resource, LoadedResource original) {
+        return new LoadedResource(resource, original.properties, original.failure, 0, 0, original.cached, original.stale, true);
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * @return true if the resource cannot be opened, i.e. the file does not exist
+     */
+    public boolean isMissing() {
+        return properties == null && failure == null;
+    }
+
+    /**
+     * @return the loaded properties, or null if the resource is missing or failed to load
+     */
+    public ParsedProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return the error that happened while reading the resource, or null if there was none
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return true if the properties were taken from the {@link ParseCache} instead of parsing the file, or the content
+     *         of the URL was taken from the cache of the {@link UrlFetcher} instead of downloading it
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return true if the URL could not be fetched, so its cached and possibly outdated content was used instead
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * @return true if the same file or URL was already loaded, reached through another resource, so its outcome was
+     *         taken as is, instead of reading it again
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * @return number of bytes parsed, zero if the properties were taken from the {@link ParseCache}
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return time spent on opening and parsing the resource
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+}
@@ -0,0 +1,221 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cache of the parsed property files, that survives between the builds. Each file is cached in its own
+ * binary entry, named after the hash of the canonical path of the file. The entry is valid as long as the file
+ * has the same size and modification time, or, if only the modification time differs, the same SHA-256 of the
+ * content. So touching a file does not invalidate its entry, but any change of the content does. The content is
+ * also hashed if the file was modified within {@link #RACY_MARGIN_MILLIS} before its entry was written, as the file
+ * systems with coarse timestamps could have modified it again without changing the modification time.
+ * <p>
+ * The entries are written atomically, and the unreadable or outdated entries are just ignored, so it is always safe
+ * to delete the cache directory, or to share it between the threads of a single build.
+ */
+public final class ParseCache {
+
+    private static final int MAGIC = 0x50524F50;
+
+    private static final int VERSION = 2;
+
+    static final long RACY_MARGIN_MILLIS = 2000;
+
+    private static final long HASHED_REGION_SIZE = 256 * 1024 * 1024;
+
+    private final Path directory;
+
+    private final String charset;
+
+    /**
+     * @param directory directory of the cache entries, created when the first entry is written
+     * @param charset encoding the files are parsed with, the entries of other encodings are not used
+     */
+    public ParseCache(Path directory, Charset charset) {
+        this.directory = directory;
+        this.charset = charset.name();
+    }
+
+    /**
+     * @param file the property file
+     * @param attributes current attributes of the file
+     * @return the cached properties of the file, or null if there is no valid entry for the file
+     */
+    public ParsedProperties get(Path file, BasicFileAttributes attributes) throws IOException {
+        Path canonical = file.toRealPath();
+        Path entry = entryOf(canonical);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+              || !canonical.toString().equals(readString(in)) || !charset.equals(readString(in))) {
+                return null;
+            }
+            long size = in.readLong();
+            long modified = in.readLong();
+            long writtenMillis = in.readLong();
+            byte[] hash = readBytes(in);
+
+            if (size != attributes.size()) {
+                return null;
+            }
+            boolean clean = modified == modifiedOf(attributes)
+              && attributes.lastModifiedTime().toMillis() <= writtenMillis - RACY_MARGIN_MILLIS;
+            if (!clean && !Arrays.equals(hash, hash(canonical))) {
+                return null;
+            }
+            return readProperties(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // corrupted entry, it will be overwritten once the file is parsed
+            return null;
+        }
+    }
+
+    /**
+     * Stores the parsed properties of the file. The entry is not written if the file has changed since the given
+     * attributes were read, as the properties may not match the current content anymore.
+     *
+     * @param file the property file
+     * @param attributes attributes of the file, read before the file was parsed
+     * @param properties parsed properties of the file
+     */
+    public void put(Path file, BasicFileAttributes attributes, ParsedProperties properties) throws IOException {
+        Path canonical = file.toRealPath();
+        byte[] hash = hash(canonical);
+        BasicFileAttributes current = Files.readAttributes(canonical, BasicFileAttributes.class);
+        if (current.size() != attributes.size() || modifiedOf(current) != modifiedOf(attributes)) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        Path entry = entryOf(canonical);
+        Path temporary = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, canonical.toString());
+                writeString(out, charset);
+                out.writeLong(attributes.size());
+                out.writeLong(modifiedOf(attributes));
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(hash.length);
+                out.write(hash);
+                writeProperties(out, properties);
+            }
+            move(temporary, entry);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path entryOf(Path canonical) {
+        byte[] hash = sha256().digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            name.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return directory.resolve(name.append(".bin").toString());
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long modifiedOf(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Hashes the content of the file through the memory mapping
+     */
+    static byte[] hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASHED_REGION_SIZE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASHED_REGION_SIZE, size - position)));
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    private static void writeProperties(DataOutputStream out, ParsedProperties properties) throws IOException {
+        out.writeInt(properties.size());
+        for (int i = 0; i < properties.size(); i++) {
+            writeString(out, properties.keyAt(i));
+            writeString(out, properties.valueAt(i));
+        }
+    }
+
+    private static ParsedProperties readProperties(DataInputStream in) throws IOException {
+        ParsedProperties properties = new ParsedProperties();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            properties.put(readString(in), readString(in));
+        }
+        return properties;
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)}, supports the strings of any length. The chars are written as is,
+     * so that the strings round-trip exactly, including the unpaired surrogates the parser produces from the escapes
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available() / Character.BYTES) {
+            throw new IOException("Corrupted cache entry");
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupted cache entry");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
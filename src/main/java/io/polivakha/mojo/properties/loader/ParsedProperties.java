@@ -0,0 +1,144 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact, unsynchronized map of the parsed properties. The keys are kept in open-addressing hash table of plain
+ * indexes, and the keys and values themselves in two parallel arrays, in the order they first appeared in the
+ * resource. Redefinition of a key replaces its value, but keeps its original position.
+ */
+public final class ParsedProperties {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+
+    private String[] values = new String[INITIAL_CAPACITY];
+
+    /**
+     * Position of the key in {@link #keys} plus one, zero marks the free slot. The table is at most half full
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+
+    /**
+     * @param key key of the property, must not be null
+     * @param value value of the property, must not be null
+     */
+    public void put(String key, String value) {
+        int mask = table.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (keys[index].equals(key)) {
+                values[index] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size + (size >> 1));
+            values = Arrays.copyOf(values, keys.length);
+        }
+        keys[size] = key;
+        values[size] = value;
+        table[slot] = ++size;
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    /**
+     * @return value of the given key, or null if there is no such key
+     */
+    public String get(String key) {
+        int mask = table.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (keys[index].equals(key)) {
+                return values[index];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index from 0 inclusive to {@link #size()} exclusive
+     * @return the key at the given position, in order of the first appearance
+     */
+    public String keyAt(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    /**
+     * @param index from 0 inclusive to {@link #size()} exclusive
+     * @return the value of the key at the given position
+     */
+    public String valueAt(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public void forEach(BiConsumer<String, String> action) {
+        for (int index = 0; index < size; index++) {
+            action.accept(keys[index], values[index]);
+        }
+    }
+
+    /**
+     * @return copy of these properties as the {@link Properties}
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        forEach(properties::put);
+        return properties;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = spread(keys[index].hashCode()) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = index + 1;
+        }
+        table = rehashed;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + size + " properties");
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (int index = 0; index < size; index++) {
+            result.append(index == 0 ? "" : ", ").append(keys[index]).append('=').append(values[index]);
+        }
+        return result.append('}').toString();
+    }
+}
@@ -2,6 +2,7 @@ package io.polivakha.mojo.properties.loader;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.function.BiConsumer;
 
 /**
  * Represents an abstract resource loader that is capable to load properties from some resource
@@ -21,5 +22,20 @@ public interface PropertiesLoader<RESOURCE> {
      * @param resources - resources list, from which the {@link Properties} should be loaded
      * @return Properties object, containing the loaded properties
      */
-    Properties loadProperties(List<RESOURCE> resources);
-}
\ No newline at end of file
+    default Properties loadProperties(List<RESOURCE> resources) {
+        Properties result = new Properties();
+        loadProperties(resources, result::put);
+        return result;
+    }
+
+    /**
+     * Loading the properties from the specified resources into the single sink, without building the
+     * intermediate {@link Properties} per resource. The properties are passed to the sink in the order
+     * of the {@code resources}, so the sink that simply puts them into a map gets the same result as
+     * {@link #loadProperties(List)}. The sink is always called from the calling thread.
+     *
+     * @param resources - resources list, from which the properties should be loaded
+     * @param sink - receives the key and the value of each loaded property
+     */
+    void loadProperties(List<RESOURCE> resources, BiConsumer<String, String> sink);
+}
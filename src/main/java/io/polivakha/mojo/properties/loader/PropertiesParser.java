@@ -0,0 +1,420 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Streaming parser of the <code>.properties</code> format, that understands exactly the same syntax as
+ * {@link java.util.Properties#load(java.io.Reader)}: comments, continuation lines, the <code>=</code>, <code>:</code>
+ * and whitespace separators, and the escapes including <code>&#92;uXXXX</code>.
+ * <p>
+ * Unlike {@link java.util.Properties}, the parser works on bytes: all the syntax characters are ASCII, so the lines
+ * are split and the keys are separated from the values before any decoding, and the bytes are decoded straight into
+ * the resulting strings. The parsed pairs are handed to the consumer as soon as they are read, so nothing but the
+ * current line is buffered. The buffers are reused between the resources, therefore the instance is not thread safe.
+ * <p>
+ * Only the UTF-8 and ISO-8859-1 encodings are supported. The malformed UTF-8 sequences are replaced with
+ * <code>U+FFFD</code>, the same way as {@link java.io.InputStreamReader} does.
+ */
+public final class PropertiesParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final boolean utf8;
+
+    private final long mappedRegionSize;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private byte[] line = new byte[1024];
+
+    private char[] chars = new char[1024];
+
+    private InputStream input;
+
+    private FileChannel channel;
+
+    private long channelPosition;
+
+    private long channelSize;
+
+    private MappedByteBuffer region;
+
+    private int offset;
+
+    private int limit;
+
+    /**
+     * The code point decoded by the last {@link #decodeUtf8(int, int, int)} call
+     */
+    private int decodedCodePoint;
+
+    /**
+     * @param charset encoding of the parsed resources
+     * @throws IllegalArgumentException if the encoding is neither UTF-8 nor ISO-8859-1
+     */
+    public PropertiesParser(Charset charset) {
+        this(charset, MAPPED_REGION_SIZE);
+    }
+
+    PropertiesParser(Charset charset, long mappedRegionSize) {
+        if (!isSupported(charset)) {
+            throw new IllegalArgumentException("Unsupported encoding of properties " + charset + ", only UTF-8 and ISO-8859-1 are supported");
+        }
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.mappedRegionSize = mappedRegionSize;
+    }
+
+    public static boolean isSupported(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    /**
+     * @param in stream to parse, it is not closed by this method
+     * @return parsed properties
+     * @throws IllegalArgumentException if the stream contains malformed <code>&#92;uXXXX</code> escape
+     */
+    public ParsedProperties parse(InputStream in) throws IOException {
+        ParsedProperties properties = new ParsedProperties();
+        parse(in, properties::put);
+        return properties;
+    }
+
+    /**
+     * @param in stream to parse, it is not closed by this method
+     * @param consumer receives the keys and values in order they appear in the stream
+     * @throws IllegalArgumentException if the stream contains malformed <code>&#92;uXXXX</code> escape
+     */
+    public void parse(InputStream in, BiConsumer<String, String> consumer) throws IOException {
+        input = in;
+        try {
+            parse(consumer);
+        } finally {
+            input = null;
+        }
+    }
+
+    /**
+     * Parses the file through the memory mapping, so the content is copied straight from the page cache into
+     * the parser buffer, without any read calls. The file is mapped in regions of at most {@value #MAPPED_REGION_SIZE}
+     * bytes, so files of any size can be parsed.
+     *
+     * @param file file to parse, the channel is not closed by this method
+     * @return parsed properties
+     * @throws IllegalArgumentException if the file contains malformed <code>&#92;uXXXX</code> escape
+     */
+    public ParsedProperties parse(FileChannel file) throws IOException {
+        ParsedProperties properties = new ParsedProperties();
+        parse(file, properties::put);
+        return properties;
+    }
+
+    /**
+     * @param file file to parse, the channel is not closed by this method
+     * @param consumer receives the keys and values in order they appear in the file
+     * @throws IllegalArgumentException if the file contains malformed <code>&#92;uXXXX</code> escape
+     * @see #parse(FileChannel)
+     */
+    public void parse(FileChannel file, BiConsumer<String, String> consumer) throws IOException {
+        channel = file;
+        channelPosition = 0;
+        channelSize = file.size();
+        try {
+            parse(consumer);
+        } finally {
+            channel = null;
+            region = null;
+        }
+    }
+
+    private void parse(BiConsumer<String, String> consumer) throws IOException {
+        offset = 0;
+        limit = 0;
+        int length;
+        while ((length = readLine()) >= 0) {
+            emit(length, consumer);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        offset = 0;
+        if (input != null) {
+            limit = input.read(buffer);
+            return limit > 0;
+        }
+
+        if (region == null || !region.hasRemaining()) {
+            if (channelPosition >= channelSize) {
+                limit = 0;
+                return false;
+            }
+            long regionSize = Math.min(mappedRegionSize, channelSize - channelPosition);
+            region = channel.map(FileChannel.MapMode.READ_ONLY, channelPosition, regionSize);
+            channelPosition += regionSize;
+        }
+        limit = Math.min(buffer.length, region.remaining());
+        region.get(buffer, 0, limit);
+        return true;
+    }
+
+    /**
+     * Reads one logical line into {@link #line}, skipping the comments, the blank lines and the leading whitespace,
+     * and joining the continuation lines. Mirrors the <code>LineReader</code> of {@link java.util.Properties}.
+     *
+     * @return length of the line, or -1 at the end of the stream
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean skipWhiteSpace = true;
+        boolean appendedLineBegin = false;
+        boolean precedingBackslash = false;
+
+        while (true) {
+            if (offset >= limit && !fill()) {
+                if (length == 0) {
+                    return -1;
+                }
+                return precedingBackslash ? length - 1 : length;
+            }
+
+            byte c = buffer[offset++];
+
+            if (skipWhiteSpace) {
+                if (c == ' ' || c == '\t' || c == '\f') {
+                    continue;
+                }
+                if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+                    continue;
+                }
+                skipWhiteSpace = false;
+                appendedLineBegin = false;
+            }
+
+            if (length == 0 && (c == '#' || c == '!')) {
+                if (!skipComment()) {
+                    return -1;
+                }
+                skipWhiteSpace = true;
+                continue;
+            }
+
+            if (c != '\n' && c != '\r') {
+                if (length == line.length) {
+                    byte[] grown = new byte[length * 2];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = c;
+                precedingBackslash = c == '\\' && !precedingBackslash;
+                continue;
+            }
+
+            if (length == 0) {
+                skipWhiteSpace = true;
+                continue;
+            }
+            if (offset >= limit && !fill()) {
+                return precedingBackslash ? length - 1 : length;
+            }
+            if (!precedingBackslash) {
+                return length;
+            }
+
+            length--;
+            skipWhiteSpace = true;
+            appendedLineBegin = true;
+            precedingBackslash = false;
+            if (c == '\r' && buffer[offset] == '\n') {
+                offset++;
+            }
+        }
+    }
+
+    /**
+     * @return false if the end of the stream is reached
+     */
+    private boolean skipComment() throws IOException {
+        while (true) {
+            while (offset < limit) {
+                byte c = buffer[offset++];
+                if (c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    private void emit(int length, BiConsumer<String, String> consumer) {
+        int keyLength = 0;
+        int valueStart = length;
+        boolean hasSeparator = false;
+        boolean precedingBackslash = false;
+
+        while (keyLength < length) {
+            byte c = line[keyLength];
+            if ((c == '=' || c == ':') && !precedingBackslash) {
+                valueStart = keyLength + 1;
+                hasSeparator = true;
+                break;
+            }
+            if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+                valueStart = keyLength + 1;
+                break;
+            }
+            precedingBackslash = c == '\\' && !precedingBackslash;
+            keyLength++;
+        }
+
+        while (valueStart < length) {
+            byte c = line[valueStart];
+            if (c != ' ' && c != '\t' && c != '\f') {
+                if (!hasSeparator && (c == '=' || c == ':')) {
+                    hasSeparator = true;
+                } else {
+                    break;
+                }
+            }
+            valueStart++;
+        }
+
+        consumer.accept(decode(0, keyLength), decode(valueStart, length));
+    }
+
+    /**
+     * Decodes the bytes of the line, and the escapes within them, into a string
+     */
+    private String decode(int from, int to) {
+        if (chars.length < to - from) {
+            chars = new char[Math.max(to - from, chars.length * 2)];
+        }
+
+        byte[] in = line;
+        char[] out = chars;
+        int count = 0;
+        int position = from;
+
+        while (position < to) {
+            int b = in[position++];
+            if (b == '\\') {
+                b = in[position++];
+                if (b == 'u') {
+                    out[count++] = decodeUnicodeEscape(position, to);
+                    position += 4;
+                    continue;
+                }
+                if (b == 't') {
+                    out[count++] = '\t';
+                    continue;
+                } else if (b == 'r') {
+                    out[count++] = '\r';
+                    continue;
+                } else if (b == 'n') {
+                    out[count++] = '\n';
+                    continue;
+                } else if (b == 'f') {
+                    out[count++] = '\f';
+                    continue;
+                }
+            }
+
+            if (b >= 0) {
+                out[count++] = (char) b;
+            } else if (!utf8) {
+                out[count++] = (char) (b & 0xFF);
+            } else {
+                position = decodeUtf8(b & 0xFF, position, to);
+                count = appendDecoded(out, count);
+            }
+        }
+        return new String(out, 0, count);
+    }
+
+    private char decodeUnicodeEscape(int position, int to) {
+        if (to - position < 4) {
+            throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 4) | hexDigit(line[position + i]);
+        }
+        return (char) value;
+    }
+
+    private static int hexDigit(byte c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+    }
+
+    /**
+     * @param lead the first, non ASCII, byte of the sequence
+     * @param position position of the byte next to the lead byte
+     * @param to end of the decoded range
+     * @return the position next to the decoded sequence
+     */
+    private int decodeUtf8(int lead, int position, int to) {
+        int continuations;
+        int minimum;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            continuations = 1;
+            minimum = 0x80;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            continuations = 2;
+            minimum = 0x800;
+            codePoint = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            continuations = 3;
+            minimum = 0x10000;
+            codePoint = lead & 0x07;
+        } else {
+            decodedCodePoint = REPLACEMENT;
+            return position;
+        }
+
+        for (int i = 0; i < continuations; i++) {
+            if (position >= to || (line[position] & 0xC0) != 0x80) {
+                decodedCodePoint = REPLACEMENT;
+                return position;
+            }
+            codePoint = (codePoint << 6) | (line[position++] & 0x3F);
+        }
+
+        if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT
+          || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            codePoint = REPLACEMENT;
+        }
+        decodedCodePoint = codePoint;
+        return position;
+    }
+
+    private int appendDecoded(char[] out, int count) {
+        if (Character.isBmpCodePoint(decodedCodePoint)) {
+            out[count++] = (char) decodedCodePoint;
+        } else {
+            out[count++] = Character.highSurrogate(decodedCodePoint);
+            out[count++] = Character.lowSurrogate(decodedCodePoint);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,22 @@
+package io.polivakha.mojo.properties.loader;
+
+import io.polivakha.mojo.properties.utils.PathParser;
+
+/**
+ * Services of the plugin, available to the {@link ResourceProvider}s
+ */
+public final class ResourceContext {
+
+    private final PathParser pathParser;
+
+    public ResourceContext(PathParser pathParser) {
+        this.pathParser = pathParser;
+    }
+
+    /**
+     * @return the parser, that searches the files by the ant path patterns
+     */
+    public PathParser getPathParser() {
+        return pathParser;
+    }
+}
@@ -0,0 +1,108 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+import io.polivakha.mojo.properties.models.UrlResource;
+
+/**
+ * Canonical identity of a {@link Resource}, so that the same content reached in different ways is loaded only once.
+ * The file, either a {@link FileResource} or a <code>file:</code> URL, is identified by its real path, i.e. with the
+ * symbolic links resolved. The other URLs are identified by the normalized URL: the scheme and the host are lower
+ * cased, the default port is dropped, and the <code>.</code> and <code>..</code> segments are removed.
+ */
+final class ResourceIdentity {
+
+    private static final String FILE_PROTOCOL = "file";
+
+    private ResourceIdentity() {
+    }
+
+    /**
+     * @return the {@link Path} of the file or the normalized {@link URI}, or null if the resource can not be identified,
+     *         i.e. it is neither a file, nor an URL
+     */
+    static Object of(Resource resource) {
+        if (resource instanceof FileResource) {
+            return realPath(((FileResource) resource).getFile().toPath());
+        }
+        if (resource instanceof UrlResource && ((UrlResource) resource).getUrl() != null) {
+            return of(((UrlResource) resource).getUrl());
+        }
+        return null;
+    }
+
+    static Object of(URL url) {
+        if (isFile(url)) {
+            try {
+                return realPath(Path.of(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+                // not a valid file URI, e.g. with the unescaped spaces, it is identified as any other URL
+            }
+        }
+        try {
+            return normalize(url.toURI());
+        } catch (URISyntaxException e) {
+            return url.toExternalForm();
+        }
+    }
+
+    /**
+     * @return true if the URL points to a local file, so reading it is as cheap as reading a {@link FileResource}
+     */
+    static boolean isFile(URL url) {
+        return FILE_PROTOCOL.equalsIgnoreCase(url.getProtocol());
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            // the missing file
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static URI normalize(URI uri) throws URISyntaxException {
+        if (uri.isOpaque() || uri.getHost() == null) {
+            return uri.normalize();
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            normalized.append(uri.getRawUserInfo()).append('@');
+        }
+        normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (uri.getPort() != -1 && uri.getPort() != defaultPort(scheme)) {
+            normalized.append(':').append(uri.getPort());
+        }
+        normalized.append(uri.getRawPath() == null ? "" : uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            normalized.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            normalized.append('#').append(uri.getRawFragment());
+        }
+        return new URI(normalized.toString()).normalize();
+    }
+
+    private static int defaultPort(String scheme) {
+        switch (scheme) {
+            case "http":
+                return 80;
+            case "https":
+                return 443;
+            case "ftp":
+                return 21;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Service provider interface of the kinds of resources, the properties can be loaded from. The providers are
+ * discovered with {@link java.util.ServiceLoader}, so a new kind of resource can be added just by putting the jar,
+ * that registers its provider in <code>META-INF/services/io.polivakha.mojo.properties.loader.ResourceProvider</code>,
+ * into the dependencies of the plugin.
+ * <p>
+ * The resources, returned by the provider, are loaded by the {@link ConcurrentPropertiesLoader}. Any {@link Resource}
+ * can be loaded, as long as it implements {@link Resource#canBeOpened()} and {@link Resource#openStream()}.
+ *
+ * @see ResourceProviders
+ */
+public interface ResourceProvider {
+
+    /**
+     * @return the schemes of the locations, that this provider understands, i.e. <code>classpath</code> for the
+     *         <code>classpath:config/app.properties</code> location
+     */
+    Set<String> getSchemes();
+
+    /**
+     * Turns the declared location into the resources to load the properties from
+     *
+     * @param location the location, including the scheme if it was declared with one
+     * @param context services of the plugin, that the provider may need
+     * @return the resources, in the order they have to be merged, may be empty
+     * @throws IOException if the location is invalid, or the resources could not be looked up
+     */
+    List<Resource> resolve(String location, ResourceContext context) throws IOException;
+}
@@ -0,0 +1,86 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Registry of the {@link ResourceProvider}s by their schemes
+ */
+public final class ResourceProviders {
+
+    /**
+     * The scheme is at least two characters long, so that the drive letters of Windows paths are not taken for it
+     */
+    private static final Pattern SCHEME = Pattern.compile("([a-zA-Z][a-zA-Z0-9+.-]+):.*", Pattern.DOTALL);
+
+    /**
+     * Scheme of the locations that are declared without any
+     */
+    public static final String DEFAULT_SCHEME = "file";
+
+    private final Map<String, ResourceProvider> providers;
+
+    private ResourceProviders(Map<String, ResourceProvider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * @param classLoader class loader to discover the providers with
+     * @return all the providers registered in the given class loader
+     * @throws IllegalStateException if several providers understand the same scheme
+     */
+    public static ResourceProviders load(ClassLoader classLoader) {
+        return of(ServiceLoader.load(ResourceProvider.class, classLoader));
+    }
+
+    /**
+     * @throws IllegalStateException if several providers understand the same scheme
+     */
+    public static ResourceProviders of(Iterable<? extends ResourceProvider> providers) {
+        Map<String, ResourceProvider> byScheme = new HashMap<>();
+        for (ResourceProvider provider : providers) {
+            for (String scheme : provider.getSchemes()) {
+                ResourceProvider previous = byScheme.putIfAbsent(scheme.toLowerCase(Locale.ROOT), provider);
+                if (previous != null) {
+                    throw new IllegalStateException(String.format("Both %s and %s provide the resources of '%s' scheme",
+                      previous.getClass().getName(), provider.getClass().getName(), scheme));
+                }
+            }
+        }
+        return new ResourceProviders(byScheme);
+    }
+
+    /**
+     * Resolves the location by its own scheme, i.e. <code>classpath:app.properties</code>. The locations without
+     * the scheme are the paths of the files
+     *
+     * @throws IOException if there is no provider for the scheme of the location, or the provider fails
+     */
+    public List<Resource> resolve(String location, ResourceContext context) throws IOException {
+        Matcher matcher = SCHEME.matcher(location);
+        return resolve(matcher.matches() ? matcher.group(1) : DEFAULT_SCHEME, location, context);
+    }
+
+    /**
+     * Resolves the location by the given scheme, that may be not a part of the location itself
+     *
+     * @throws IOException if there is no provider for the scheme, or the provider fails
+     */
+    public List<Resource> resolve(String scheme, String location, ResourceContext context) throws IOException {
+        ResourceProvider provider = providers.get(scheme.toLowerCase(Locale.ROOT));
+        if (provider == null) {
+            throw new IOException("There is no provider of the resources of '" + scheme + "' scheme, declared by " + location);
+        }
+        List<Resource> resources = provider.resolve(location, context);
+        return resources == null ? Collections.emptyList() : resources;
+    }
+}
@@ -0,0 +1,511 @@
+package io.polivakha.mojo.properties.loader;
+
+import static java.net.HttpURLConnection.HTTP_GONE;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fetches the content of the URLs exactly once per build. The responses of the HTTP(S) URLs are cached on disk
+ * together with their <code>ETag</code> and <code>Last-Modified</code> headers, so the next builds revalidate them
+ * with the conditional GET, and get the content from the cache if it has not changed. In offline mode the cached
+ * content is used without any network access, and the cache also serves as the fallback if the server cannot be
+ * reached.
+ * <p>
+ * The HTTP(S) URLs are fetched with the {@link HttpClient}, that multiplexes the requests to the same server over
+ * a single HTTP/2 connection whenever the server supports it. The requests have the connect and the overall timeouts,
+ * and the failed requests are retried with the exponential backoff. The URLs can be fetched concurrently, see
+ * {@link #fetchAsync(URL)}; on the runtimes with virtual threads they are used to wait for the responses.
+ * <p>
+ * The expected SHA-256 of the content can be declared in the fragment of the URL, i.e.
+ * <code>https://config.example.com/app.properties#sha256=&lt;hex&gt;</code>. The fragment is never sent to the server.
+ */
+public class UrlFetcher implements AutoCloseable {
+
+    private static final String SHA256_FRAGMENT = "sha256=";
+
+    private static final int CACHE_MAGIC = 0x55524C31;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final Path cacheDirectory;
+
+    private final boolean offline;
+
+    private int concurrency = 8;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    private int retries = 2;
+
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+    private Semaphore requestPermits;
+
+    private ExecutorService executor;
+
+    private HttpClient client;
+
+    /**
+     * @param cacheDirectory directory of the cached responses, or null to not cache them
+     * @param offline if true, the HTTP(S) URLs are served from the cache only
+     */
+    public UrlFetcher(Path cacheDirectory, boolean offline) {
+        this.cacheDirectory = cacheDirectory;
+        this.offline = offline;
+    }
+
+    /**
+     * @param concurrency maximal number of URLs fetched at the same time
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Number of concurrently fetched URLs must be positive, but was " + concurrency);
+        }
+        this.concurrency = concurrency;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        if (connectTimeout.isNegative() || connectTimeout.isZero()) {
+            throw new IllegalArgumentException("Connect timeout must be positive, but was " + connectTimeout);
+        }
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @param requestTimeout timeout of the whole request, from sending it to receiving the complete response
+     */
+    public void setRequestTimeout(Duration requestTimeout) {
+        if (requestTimeout.isNegative() || requestTimeout.isZero()) {
+            throw new IllegalArgumentException("Request timeout must be positive, but was " + requestTimeout);
+        }
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * @param retries how many times the failed request is retried, if the server cannot be reached, or responds with
+     *                HTTP 429 or 5xx
+     */
+    public void setRetries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("Number of retries must not be negative, but was " + retries);
+        }
+        this.retries = retries;
+    }
+
+    /**
+     * @param retryBackoff delay before the first retry, it doubles with each next retry
+     */
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Starts fetching the URL in background. At most {@link #setConcurrency(int) concurrency} URLs are fetched
+     * at the same time.
+     *
+     * @param url URL to fetch, with the optional <code>#sha256=...</code> fragment
+     * @return the future of the fetched content, failed with {@link IOException} the same way {@link #fetch(URL)} fails
+     */
+    public CompletableFuture<Fetched> fetchAsync(URL url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch(url);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor());
+    }
+
+    /**
+     * @param url URL to fetch, with the optional <code>#sha256=...</code> fragment
+     * @return fetched content, or the {@link Fetched#isMissing() missing} one if the URL could not be fetched and is
+     *         not cached, so it is up to the caller whether that fails the build
+     * @throws IOException if the SHA-256 of the content does not match the declared one, or the thread is interrupted
+     */
+    public Fetched fetch(URL url) throws IOException {
+        Fetched fetched = isHttp(url) ? fetchHttp(url) : fetchDirectly(url);
+        if (fetched.isMissing()) {
+            return fetched;
+        }
+
+        String expectedSha256 = expectedSha256(url);
+        if (expectedSha256 != null) {
+            String actualSha256 = sha256(fetched.getContent());
+            if (!actualSha256.equalsIgnoreCase(expectedSha256)) {
+                throw new IOException("SHA-256 of " + withoutFragment(url) + " is " + actualSha256 + ", but " + expectedSha256 + " is expected");
+            }
+        }
+        return fetched;
+    }
+
+    private static Fetched fetchDirectly(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            return Fetched.fetched(in.readAllBytes());
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            return Fetched.missing();
+        }
+    }
+
+    private Fetched fetchHttp(URL url) throws IOException {
+        String location = withoutFragment(url);
+        CacheEntry entry = cacheDirectory == null ? null : new CacheEntry(location);
+        CachedResponse cached = entry == null ? null : entry.read();
+
+        if (offline) {
+            return cached == null ? Fetched.missing() : Fetched.cached(cached.content, false);
+        }
+
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(new URI(location)).timeout(requestTimeout).GET();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return Fetched.missing();
+        }
+        if (cached != null) {
+            setConditionalHeaders(request, cached);
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = send(request.build());
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            return cached == null ? Fetched.missing() : Fetched.cached(cached.content, true);
+        }
+
+        int status = response.statusCode();
+        if (status == HTTP_NOT_MODIFIED && cached != null) {
+            return Fetched.cached(cached.content, false);
+        }
+        if (status == HTTP_NOT_FOUND || status == HTTP_GONE) {
+            return Fetched.missing();
+        }
+        if (status != HTTP_OK) {
+            // only the failure of the server is worth hiding behind the cached content, not e.g. the denied access
+            return cached == null || status < HTTP_INTERNAL_ERROR ? Fetched.missing() : Fetched.cached(cached.content, true);
+        }
+
+        if (entry != null) {
+            entry.write(response.body(), response.headers().firstValue("ETag").orElse(null),
+              response.headers().firstValue("Last-Modified").orElse(null));
+        }
+        return Fetched.fetched(response.body());
+    }
+
+    /**
+     * Sends the request, retrying it with the exponential backoff while the server cannot be reached, or responds
+     * with the status that is worth retrying
+     *
+     * @return the last response
+     * @throws IOException the failure of the last attempt
+     */
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        Semaphore semaphore = requestPermits();
+        acquire(semaphore, request);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    HttpResponse<byte[]> response = client().send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    if (attempt == retries || !isRetryable(response.statusCode())) {
+                        return response;
+                    }
+                } catch (IOException e) {
+                    if (attempt == retries) {
+                        throw e;
+                    }
+                }
+                Thread.sleep(retryBackoff.multipliedBy(1L << Math.min(attempt, 16)).toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + request.uri());
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == HTTP_TOO_MANY_REQUESTS || status >= HTTP_INTERNAL_ERROR;
+    }
+
+    private static void acquire(Semaphore semaphore, HttpRequest request) throws InterruptedIOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to fetch " + request.uri());
+        }
+    }
+
+    private static void setConditionalHeaders(HttpRequest.Builder request, CachedResponse cached) {
+        if (cached.etag != null) {
+            request.header("If-None-Match", cached.etag);
+        }
+        if (cached.lastModified != null) {
+            request.header("If-Modified-Since", cached.lastModified);
+        }
+    }
+
+    private synchronized Semaphore requestPermits() {
+        if (requestPermits == null) {
+            requestPermits = new Semaphore(concurrency);
+        }
+        return requestPermits;
+    }
+
+    private synchronized HttpClient client() {
+        if (client == null) {
+            client = HttpClient.newBuilder()
+              .version(HttpClient.Version.HTTP_2)
+              .followRedirects(HttpClient.Redirect.NORMAL)
+              .connectTimeout(connectTimeout)
+              .build();
+        }
+        return client;
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = newVirtualThreadPerTaskExecutor();
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+                    Thread thread = new Thread(runnable, "properties-url-fetcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * The plugin is compiled for Java 11, so the virtual threads of Java 21 are looked up reflectively
+     *
+     * @return executor that starts a new virtual thread for each task, or null if the runtime has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean isHttp(URL url) {
+        return "http".equalsIgnoreCase(url.getProtocol()) || "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    private static String expectedSha256(URL url) {
+        String fragment = url.getRef();
+        if (fragment == null || !fragment.toLowerCase(Locale.ROOT).startsWith(SHA256_FRAGMENT)) {
+            return null;
+        }
+        return fragment.substring(SHA256_FRAGMENT.length());
+    }
+
+    private static String withoutFragment(URL url) {
+        String location = url.toExternalForm();
+        int fragment = location.indexOf('#');
+        return fragment < 0 ? location : location.substring(0, fragment);
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The cached response: the content, and the metadata needed to revalidate it. Both are kept in a single file, that
+     * is replaced atomically, so the content can never be paired with the <code>ETag</code> of another response
+     */
+    private final class CacheEntry {
+
+        private final String location;
+
+        private final Path file;
+
+        private CacheEntry(String location) {
+            String name = sha256(location.getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+            this.location = location;
+            this.file = cacheDirectory.resolve(name + ".response");
+        }
+
+        /**
+         * @return the cached response, or null if there is none, or it is unreadable
+         */
+        private CachedResponse read() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != CACHE_MAGIC || !location.equals(in.readUTF())) {
+                    return null;
+                }
+                String etag = readOptional(in);
+                String lastModified = readOptional(in);
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                return new CachedResponse(content, etag, lastModified);
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private void write(byte[] body, String etag, String lastModified) {
+            try {
+                Files.createDirectories(cacheDirectory);
+                Path temporary = Files.createTempFile(cacheDirectory, file.getFileName().toString(), ".tmp");
+                try {
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                        out.writeInt(CACHE_MAGIC);
+                        out.writeUTF(location);
+                        writeOptional(out, etag);
+                        writeOptional(out, lastModified);
+                        out.writeInt(body.length);
+                        out.write(body);
+                    }
+                    try {
+                        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException e) {
+                // the cache is just an optimization, the URL is fetched again next time
+            }
+        }
+
+        private String readOptional(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+
+        private void writeOptional(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final byte[] content;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private CachedResponse(byte[] content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Outcome of fetching a URL
+     */
+    public static final class Fetched {
+
+        private final byte[] content;
+
+        private final boolean fromCache;
+
+        private final boolean stale;
+
+        private Fetched(byte[] content, boolean fromCache, boolean stale) {
+            this.content = content;
+            this.fromCache = fromCache;
+            this.stale = stale;
+        }
+
+        static Fetched fetched(byte[] content) {
+            return new Fetched(content, false, false);
+        }
+
+        static Fetched cached(byte[] content, boolean stale) {
+            return new Fetched(content, true, stale);
+        }
+
+        static Fetched missing() {
+            return new Fetched(null, false, false);
+        }
+
+        /**
+         * @return true if there is no such resource, or it could not be fetched and there is no cached content
+         */
+        public boolean isMissing() {
+            return content == null;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return true if the content was taken from the cache, either because it has not changed, or in offline mode
+         */
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        /**
+         * @return true if the server could not be reached, so the cached content may be outdated
+         */
+        public boolean isStale() {
+            return stale;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import io.polivakha.mojo.properties.models.Resource;
+import io.polivakha.mojo.properties.models.UrlResource;
+
+/**
+ * Provides the resources by their URLs, see {@link UrlFetcher} for how they are fetched
+ */
+public class UrlResourceProvider implements ResourceProvider {
+
+    @Override
+    public Set<String> getSchemes() {
+        return Set.of("http", "https", "ftp", "jar", "url");
+    }
+
+    @Override
+    public List<Resource> resolve(String location, ResourceContext context) throws IOException {
+        try {
+            return Collections.singletonList(new UrlResource(location));
+        } catch (MojoExecutionException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
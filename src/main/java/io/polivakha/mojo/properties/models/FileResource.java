@@ -14,6 +14,10 @@ public class FileResource extends Resource {
         this.file = file;
     }
 
+    public File getFile() {
+        return file;
+    }
+
     public boolean canBeOpened() {
         return file.exists();
     }
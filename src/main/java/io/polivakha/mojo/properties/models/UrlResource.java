@@ -40,17 +40,24 @@ public class UrlResource extends Resource {
         }
     }
 
+    /**
+     * @return the URL of the resource, or null if it is the classpath resource that does not exist
+     */
+    public URL getUrl() {
+        return url;
+    }
+
     public boolean canBeOpened() {
         if ( isMissingClasspathResouce ) {
             return false;
         }
         try {
-            openStream();
+            openStream().close();
+            return true;
         }
         catch ( IOException e ) {
             return false;
         }
-        return true;
     }
 
     protected InputStream openStream() throws IOException {
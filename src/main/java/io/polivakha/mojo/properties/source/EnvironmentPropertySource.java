@@ -0,0 +1,75 @@
+package io.polivakha.mojo.properties.source;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Exposes the environment variables as properties with the <code>env.</code> prefix, i.e. <code>${env.HOME}</code>.
+ * The environment is materialized lazily, only when the first <code>env.</code> key is actually requested.
+ */
+public class EnvironmentPropertySource implements PropertySource {
+
+    private static final String ENV_PREFIX = "env.";
+
+    private final EnvironmentLoader loader;
+
+    private volatile SnapshotPropertySource environment;
+
+    /**
+     * @param loader provides the environment variables, it is invoked at most once
+     */
+    public EnvironmentPropertySource(EnvironmentLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param environment already loaded environment variables, may be null if there are none
+     * @return source backed by the given environment variables
+     */
+    public static EnvironmentPropertySource of(Properties environment) {
+        return new EnvironmentPropertySource(() -> environment == null ? new Properties() : environment);
+    }
+
+    /**
+     * @throws UncheckedIOException if the environment variables could not be loaded
+     */
+    @Override
+    public String getProperty(String key) {
+        if (!key.startsWith(ENV_PREFIX)) {
+            return null;
+        }
+        return environment().getProperty(key.substring(ENV_PREFIX.length()));
+    }
+
+    private SnapshotPropertySource environment() {
+        SnapshotPropertySource result = environment;
+        if (result == null) {
+            synchronized (this) {
+                result = environment;
+                if (result == null) {
+                    try {
+                        result = SnapshotPropertySource.of(loader.load());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Error getting system environment variables", e);
+                    }
+                    environment = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the environment variables
+     */
+    @FunctionalInterface
+    public interface EnvironmentLoader {
+
+        /**
+         * @return the environment variables, must not be null
+         * @throws IOException if the environment variables could not be queried
+         */
+        Properties load() throws IOException;
+    }
+}
@@ -0,0 +1,16 @@
+package io.polivakha.mojo.properties.source;
+
+/**
+ * Read-only source of property values, that the placeholders are resolved against
+ *
+ * @author Mikhail Polivakha
+ */
+@FunctionalInterface
+public interface PropertySource {
+
+    /**
+     * @param key property key, must not be null
+     * @return raw value of the property, or null if the source does not define the property
+     */
+    String getProperty(String key);
+}
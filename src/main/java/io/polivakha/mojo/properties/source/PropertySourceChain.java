@@ -0,0 +1,30 @@
+package io.polivakha.mojo.properties.source;
+
+import java.util.List;
+
+/**
+ * Chain of {@link PropertySource}s, that are consulted in order. The first non-empty value wins.
+ */
+public class PropertySourceChain implements PropertySource {
+
+    private final PropertySource[] sources;
+
+    public PropertySourceChain(List<PropertySource> sources) {
+        this.sources = sources.toArray(new PropertySource[0]);
+    }
+
+    public PropertySourceChain(PropertySource... sources) {
+        this(List.of(sources));
+    }
+
+    @Override
+    public String getProperty(String key) {
+        for (PropertySource source : sources) {
+            String value = source.getProperty(key);
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
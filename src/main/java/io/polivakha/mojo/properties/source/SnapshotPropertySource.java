@@ -0,0 +1,44 @@
+package io.polivakha.mojo.properties.source;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable copy of the {@link Properties}, taken once. Unlike {@link Properties} itself, lookups in the snapshot
+ * never take a lock, so it can be safely and cheaply shared by any number of threads.
+ */
+public class SnapshotPropertySource implements PropertySource {
+
+    private final Map<String, String> values;
+
+    private SnapshotPropertySource(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * @param properties properties to copy, must not be null
+     * @return snapshot of the string keys and values of the given properties
+     */
+    public static SnapshotPropertySource of(Properties properties) {
+        Map<String, String> values = new HashMap<>(properties.size() * 4 / 3 + 1);
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                values.put((String) entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return new SnapshotPropertySource(values);
+    }
+
+    /**
+     * @return snapshot of the JVM system properties at the moment of the call
+     */
+    public static SnapshotPropertySource ofSystemProperties() {
+        return of(System.getProperties());
+    }
+
+    @Override
+    public String getProperty(String key) {
+        return values.get(key);
+    }
+}
@@ -0,0 +1,367 @@
+package io.polivakha.mojo.properties.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ant path pattern, compiled once into the matchers of its segments. The semantics are the ones of the ant style
+ * patterns:
+ * <ul>
+ *     <li><code>?</code> matches one character within the segment</li>
+ *     <li><code>*</code> matches zero or more characters within the segment</li>
+ *     <li><code>**</code> matches zero or more segments</li>
+ *     <li><code>{name:regex}</code> matches the regular expression within the segment</li>
+ * </ul>
+ * The path is split into the segments only once per match, and the paths that do not start with the literal prefix
+ * of the pattern are rejected without being split at all.
+ */
+final class AntPattern {
+
+    private static final String DOUBLE_STAR = "**";
+
+    private final String pattern;
+
+    private final String separator;
+
+    private final SegmentMatcher[] segments;
+
+    /**
+     * The literal segments of the pattern before the first wildcard, every normalized matching path starts with them
+     */
+    private final String literalPrefix;
+
+    private AntPattern(String pattern, String separator, SegmentMatcher[] segments, String literalPrefix) {
+        this.pattern = pattern;
+        this.separator = separator;
+        this.segments = segments;
+        this.literalPrefix = literalPrefix;
+    }
+
+    /**
+     * @param pattern ant path pattern
+     * @param separator separator of the path segments
+     * @return compiled pattern
+     */
+    static AntPattern compile(String pattern, String separator) {
+        List<String> tokens = tokenize(pattern, separator);
+        SegmentMatcher[] segments = new SegmentMatcher[tokens.size()];
+        StringBuilder literalPrefix = new StringBuilder(pattern.startsWith(separator) ? separator : "");
+        boolean literal = true;
+
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = SegmentMatcher.compile(tokens.get(i));
+            if (literal && segments[i].literal != null) {
+                literalPrefix.append(segments[i].literal).append(separator);
+            } else {
+                literal = false;
+            }
+        }
+
+        if (literalPrefix.length() > separator.length() && literalPrefix.lastIndexOf(separator) == literalPrefix.length() - separator.length()) {
+            literalPrefix.setLength(literalPrefix.length() - separator.length());
+        }
+        return new AntPattern(pattern, separator, segments, literalPrefix.toString());
+    }
+
+    /**
+     * @return true if the whole path matches the pattern
+     */
+    boolean matches(String path) {
+        return (path.startsWith(literalPrefix) || hasEmptySegments(path)) && doMatch(path, true);
+    }
+
+    /**
+     * @return true if the pattern can match the path extended by more segments, i.e. the path is the directory that
+     *         can contain the matching files
+     */
+    boolean matchesStart(String path) {
+        if (!path.startsWith(literalPrefix) && !literalPrefix.startsWith(path) && !hasEmptySegments(path)) {
+            return false;
+        }
+        return doMatch(path, false);
+    }
+
+    private boolean doMatch(String path, boolean fullMatch) {
+        if (path.startsWith(separator) != pattern.startsWith(separator)) {
+            return false;
+        }
+
+        List<String> pathSegments = tokenize(path, separator);
+        int pattStart = 0;
+        int pattEnd = segments.length - 1;
+        int pathStart = 0;
+        int pathEnd = pathSegments.size() - 1;
+
+        while (pattStart <= pattEnd && pathStart <= pathEnd) {
+            if (segments[pattStart].doubleStar) {
+                break;
+            }
+            if (!segments[pattStart].matches(pathSegments.get(pathStart))) {
+                return false;
+            }
+            pattStart++;
+            pathStart++;
+        }
+
+        if (pathStart > pathEnd) {
+            if (pattStart > pattEnd) {
+                return pattern.endsWith(separator) == path.endsWith(separator);
+            }
+            if (!fullMatch) {
+                return true;
+            }
+            if (pattStart == pattEnd && segments[pattStart].any && path.endsWith(separator)) {
+                return true;
+            }
+            return onlyDoubleStars(pattStart, pattEnd);
+        } else if (pattStart > pattEnd) {
+            return false;
+        } else if (!fullMatch && segments[pattStart].doubleStar) {
+            return true;
+        }
+
+        while (pattStart <= pattEnd && pathStart <= pathEnd) {
+            if (segments[pattEnd].doubleStar) {
+                break;
+            }
+            if (!segments[pattEnd].matches(pathSegments.get(pathEnd))) {
+                return false;
+            }
+            pattEnd--;
+            pathEnd--;
+        }
+
+        if (pathStart > pathEnd) {
+            return onlyDoubleStars(pattStart, pattEnd);
+        }
+
+        while (pattStart != pattEnd && pathStart <= pathEnd) {
+            int nextDoubleStar = -1;
+            for (int i = pattStart + 1; i <= pattEnd; i++) {
+                if (segments[i].doubleStar) {
+                    nextDoubleStar = i;
+                    break;
+                }
+            }
+            if (nextDoubleStar == pattStart + 1) {
+                pattStart++;
+                continue;
+            }
+
+            int patternLength = nextDoubleStar - pattStart - 1;
+            int pathLength = pathEnd - pathStart + 1;
+            int found = -1;
+
+            search:
+            for (int i = 0; i <= pathLength - patternLength; i++) {
+                for (int j = 0; j < patternLength; j++) {
+                    if (!segments[pattStart + j + 1].matches(pathSegments.get(pathStart + i + j))) {
+                        continue search;
+                    }
+                }
+                found = pathStart + i;
+                break;
+            }
+
+            if (found == -1) {
+                return false;
+            }
+            pattStart = nextDoubleStar;
+            pathStart = found + patternLength;
+        }
+
+        return onlyDoubleStars(pattStart, pattEnd);
+    }
+
+    /**
+     * The empty segments are ignored, so the literal prefix can not be used as is to reject the not normalized paths
+     */
+    private boolean hasEmptySegments(String path) {
+        return path.contains(separator + separator);
+    }
+
+    private boolean onlyDoubleStars(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (!segments[i].doubleStar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> tokenize(String path, String separator) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = path.indexOf(separator, start)) != -1) {
+            if (end > start) {
+                tokens.add(path.substring(start, end));
+            }
+            start = end + separator.length();
+        }
+        if (start < path.length()) {
+            tokens.add(path.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * @return true if the segment of the ant pattern contains any wildcards
+     */
+    static boolean containsWildcards(String segment) {
+        if (segment.indexOf('*') != -1 || segment.indexOf('?') != -1) {
+            return true;
+        }
+        int characterClass = segment.indexOf(":[");
+        return characterClass != -1 && segment.indexOf(']', characterClass) != -1;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * Matcher of a single segment of the path, specialized by the shape of the segment of the pattern
+     */
+    private static final class SegmentMatcher {
+
+        private static final Pattern TEMPLATE = Pattern.compile("\\{([^/]+?)}");
+
+        private final String glob;
+
+        /**
+         * The segment itself, if it does not contain any wildcards, null otherwise
+         */
+        private final String literal;
+
+        private final boolean doubleStar;
+
+        private final boolean any;
+
+        /**
+         * For the <code>prefix*</code> and <code>*suffix</code> segments, null otherwise
+         */
+        private final String prefix;
+
+        private final String suffix;
+
+        private final Pattern regex;
+
+        private SegmentMatcher(String glob, String literal, boolean doubleStar, boolean any, String prefix, String suffix, Pattern regex) {
+            this.glob = glob;
+            this.literal = literal;
+            this.doubleStar = doubleStar;
+            this.any = any;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.regex = regex;
+        }
+
+        static SegmentMatcher compile(String glob) {
+            if (DOUBLE_STAR.equals(glob)) {
+                return new SegmentMatcher(glob, null, true, true, null, null, null);
+            }
+            if ("*".equals(glob)) {
+                return new SegmentMatcher(glob, null, false, true, null, null, null);
+            }
+            if (glob.indexOf('{') != -1) {
+                return new SegmentMatcher(glob, null, false, false, null, null, toRegex(glob));
+            }
+            if (!containsWildcards(glob)) {
+                return new SegmentMatcher(glob, glob, false, false, null, null, null);
+            }
+
+            int star = glob.indexOf('*');
+            if (star != -1 && glob.indexOf('?') == -1 && star == glob.lastIndexOf('*')) {
+                return new SegmentMatcher(glob, null, false, false, glob.substring(0, star), glob.substring(star + 1), null);
+            }
+            return new SegmentMatcher(glob, null, false, false, null, null, null);
+        }
+
+        /**
+         * Only the segments with the URI template variables, like <code>{version:[0-9.]+}</code>, are turned into
+         * the regular expressions
+         */
+        private static Pattern toRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            Matcher matcher = TEMPLATE.matcher(glob);
+            int end = 0;
+            while (matcher.find()) {
+                regex.append(globToRegex(glob.substring(end, matcher.start())));
+                String variable = matcher.group(1);
+                int colon = variable.indexOf(':');
+                regex.append('(').append(colon == -1 ? "(?s).*" : variable.substring(colon + 1)).append(')');
+                end = matcher.end();
+            }
+            regex.append(globToRegex(glob.substring(end)));
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*' || c == '?') {
+                    if (i > start) {
+                        regex.append(Pattern.quote(glob.substring(start, i)));
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                    start = i + 1;
+                }
+            }
+            if (start < glob.length()) {
+                regex.append(Pattern.quote(glob.substring(start)));
+            }
+            return regex.toString();
+        }
+
+        boolean matches(String segment) {
+            if (any) {
+                return true;
+            }
+            if (literal != null) {
+                return literal.equals(segment);
+            }
+            if (prefix != null) {
+                return segment.length() >= prefix.length() + suffix.length() && segment.startsWith(prefix) && segment.endsWith(suffix);
+            }
+            if (regex != null) {
+                return regex.matcher(segment).matches();
+            }
+            return matchesGlob(segment);
+        }
+
+        /**
+         * Matches the <code>*</code> and <code>?</code> wildcards, backtracking only to the last <code>*</code>
+         */
+        private boolean matchesGlob(String segment) {
+            int g = 0;
+            int s = 0;
+            int starAt = -1;
+            int starMatched = 0;
+
+            while (s < segment.length()) {
+                if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == segment.charAt(s))) {
+                    g++;
+                    s++;
+                } else if (g < glob.length() && glob.charAt(g) == '*') {
+                    starAt = g++;
+                    starMatched = s;
+                } else if (starAt != -1) {
+                    g = starAt + 1;
+                    s = ++starMatched;
+                } else {
+                    return false;
+                }
+            }
+            while (g < glob.length() && glob.charAt(g) == '*') {
+                g++;
+            }
+            return g == glob.length();
+        }
+    }
+}
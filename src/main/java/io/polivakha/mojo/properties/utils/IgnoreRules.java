@@ -0,0 +1,234 @@
+package io.polivakha.mojo.properties.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Rules of the <code>.gitignore</code> and <code>.ignore</code> files of a single directory. The rules follow the
+ * <code>.gitignore</code> format: the later rule wins, <code>!</code> negates the rule, the trailing <code>/</code>
+ * matches only the directories, and the rule containing <code>/</code> anywhere but at its end is relative to the
+ * directory of the file, while the other rules match the name at any depth.
+ */
+final class IgnoreRules {
+
+    /**
+     * The names of the ignore files, the rules of the later file win
+     */
+    static final List<String> FILE_NAMES = List.of(".gitignore", ".ignore");
+
+    /**
+     * The directory, that is always ignored
+     */
+    static final String GIT_DIRECTORY = ".git";
+
+    private final Path directory;
+
+    private final List<Rule> rules;
+
+    /**
+     * The rules of the closest parent directory having any, or null
+     */
+    private final IgnoreRules parent;
+
+    private IgnoreRules(Path directory, List<Rule> rules, IgnoreRules parent) {
+        this.directory = directory.toAbsolutePath();
+        this.rules = rules;
+        this.parent = parent;
+    }
+
+    /**
+     * @param directory the directory to read the ignore files of
+     * @param parent the rules of the parent directories, may be null
+     * @return the rules of the directory, followed by the parent ones, or just the parent rules if the directory has
+     *         no ignore files
+     * @throws IOException if the existing ignore file could not be read
+     */
+    static IgnoreRules load(Path directory, IgnoreRules parent) throws IOException {
+        List<Rule> rules = null;
+        for (String fileName : FILE_NAMES) {
+            Path file = directory.resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            if (rules == null) {
+                rules = new ArrayList<>();
+            }
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                Rule rule = Rule.parse(line);
+                if (rule != null) {
+                    rules.add(rule);
+                }
+            }
+        }
+        return rules == null ? parent : new IgnoreRules(directory, rules, parent);
+    }
+
+    /**
+     * @param directory the directory the rules are relative to
+     * @param lines the lines of the ignore file
+     * @return the parsed rules
+     */
+    static IgnoreRules parse(Path directory, List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : lines) {
+            Rule rule = Rule.parse(line);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return new IgnoreRules(directory, rules, null);
+    }
+
+    /**
+     * @param rules the rules of the directory containing the path, followed by the parent ones, may be null
+     * @param path the file or directory
+     * @param isDirectory if the path is a directory
+     * @return true if the path is ignored. The rules of the innermost directory win, and the <code>.git</code> directory
+     *         is always ignored
+     */
+    static boolean isIgnored(IgnoreRules rules, Path path, boolean isDirectory) {
+        if (isDirectory && path.getFileName() != null && GIT_DIRECTORY.equals(path.getFileName().toString())) {
+            return true;
+        }
+        Path absolutePath = path.toAbsolutePath();
+        for (IgnoreRules current = rules; current != null; current = current.parent) {
+            Boolean ignored = current.isIgnored(absolutePath, isDirectory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path the file or directory inside of the {@link #directory}
+     * @param isDirectory if the path is a directory
+     * @return {@link Boolean#TRUE} if the path is ignored, {@link Boolean#FALSE} if it is explicitly not ignored by the
+     *         negated rule, or null if no rule matches it
+     */
+    Boolean isIgnored(Path path, boolean isDirectory) {
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            return null;
+        }
+
+        Path relative = directory.relativize(path);
+        StringBuilder relativePath = new StringBuilder();
+        for (Path name : relative) {
+            if (relativePath.length() > 0) {
+                relativePath.append('/');
+            }
+            relativePath.append(name);
+        }
+        String name = relative.getFileName().toString();
+
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.matches(relativePath, name, isDirectory)) {
+                return !rule.negated;
+            }
+        }
+        return null;
+    }
+
+    private static final class Rule {
+
+        private final Pattern regex;
+
+        private final boolean negated;
+
+        private final boolean directoryOnly;
+
+        private final boolean anchored;
+
+        private Rule(Pattern regex, boolean negated, boolean directoryOnly, boolean anchored) {
+            this.regex = regex;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.anchored = anchored;
+        }
+
+        static Rule parse(String line) {
+            String pattern = trimTrailingSpaces(line);
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                return null;
+            }
+
+            boolean negated = pattern.startsWith("!");
+            if (negated) {
+                pattern = pattern.substring(1);
+            } else if (pattern.startsWith("\\!") || pattern.startsWith("\\#")) {
+                pattern = pattern.substring(1);
+            }
+
+            boolean directoryOnly = pattern.endsWith("/");
+            if (directoryOnly) {
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+
+            boolean anchored = pattern.indexOf('/') != -1;
+            if (pattern.startsWith("/")) {
+                pattern = pattern.substring(1);
+            }
+            if (pattern.isEmpty()) {
+                return null;
+            }
+            return new Rule(Pattern.compile(toRegex(pattern)), negated, directoryOnly, anchored);
+        }
+
+        boolean matches(CharSequence relativePath, String name, boolean isDirectory) {
+            if (directoryOnly && !isDirectory) {
+                return false;
+            }
+            return regex.matcher(anchored ? relativePath : name).matches();
+        }
+
+        private static String trimTrailingSpaces(String line) {
+            int end = line.length();
+            while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+                end--;
+            }
+            return line.substring(0, end);
+        }
+
+        private static String toRegex(String pattern) {
+            StringBuilder regex = new StringBuilder();
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (pattern.startsWith("**/", i) && (i == 0 || pattern.charAt(i - 1) == '/')) {
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                } else if (pattern.startsWith("**", i) && i + 2 == pattern.length() && (i == 0 || pattern.charAt(i - 1) == '/')) {
+                    regex.append(".*");
+                    i += 2;
+                } else if (c == '*') {
+                    regex.append("[^/]*");
+                    i++;
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                    i++;
+                } else if (c == '[' && pattern.indexOf(']', i + 2) != -1) {
+                    int end = pattern.indexOf(']', i + 2);
+                    String characterClass = pattern.substring(i + 1, end);
+                    if (characterClass.startsWith("!")) {
+                        characterClass = "^" + characterClass.substring(1);
+                    }
+                    regex.append('[').append(characterClass.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                    i = end + 1;
+                } else if (c == '\\' && i + 1 < pattern.length()) {
+                    regex.append(Pattern.quote(String.valueOf(pattern.charAt(i + 1))));
+                    i += 2;
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    i++;
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package io.polivakha.mojo.properties.utils;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileVisitOption;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.util.regex.Pattern;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.Assert;
-
 /**
  * This class parses the file system tree to find files matching specific ant pattern
  *
@@ -18,12 +24,25 @@ import org.springframework.util.Assert;
  */
 public class PathParser {
 
-    private final AntPathMatcher antPathMatcher = new AntPathMatcher(File.pathSeparator);
+    private final LongAdder scannedFiles = new LongAdder();
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private boolean followLinks = true;
+
+    private boolean useIgnoreFiles;
+
+    private int parallelism = 1;
 
-    private final Pattern characterClassesRegexp = Pattern.compile(".*:\\[.*]");
+    private ScanIndex scanIndex;
+
+    private final LongAdder listedDirectories = new LongAdder();
 
     /**
-     * Searches for all files available that match provided {@code antPathPattern}
+     * Searches for all files available that match provided {@code antPathPattern}. The file tree is walked from the
+     * {@link #extractExactDirectory(Path) exact directory} of the pattern, and the directories that cannot contain
+     * any matching file, i.e. <code>/repo/target/classes</code> for the <code>/repo/*&#47;conf/*.properties</code> pattern,
+     * are not entered at all.
      *
      * @param antPathPattern - ant path pattern, must not be null
      * @return Stream of {@link Path}'s, that are files (not directories), that match provided ant path.
@@ -33,25 +52,385 @@ public class PathParser {
      */
     public Stream<Path> streamFilesMatchingAntPath(String antPathPattern) throws IOException {
 
-        Assert.notNull(antPathPattern, "Provided ant path is null");
+        if (antPathPattern == null) {
+            throw new IllegalArgumentException("Provided ant path is null");
+        }
+
+        return findFilesMatchingAntPaths(List.of(antPathPattern), List.of()).get(0).stream();
+    }
+
+    /**
+     * Searches for all files available that match any of provided {@code includes}, and none of the {@code excludes},
+     * walking the file tree only once. The directories that are covered by several include patterns are visited only once,
+     * and the directories that can contain neither matching, nor only excluded files are not entered at all.
+     *
+     * @param includes - ant path patterns of the files to find, must not be null
+     * @param excludes - ant path patterns of the files to skip, must not be null. The pattern ending with <code>**</code>
+     *                   excludes the matching directories entirely
+     * @return the files (not directories) matching each of the include patterns, in the order of the patterns.
+     *         The files of each pattern are sorted by their paths. The file matching several patterns is returned
+     *         for each of them
+     *
+     * @throws IOException in case of any file system errors
+     */
+    public List<List<Path>> findFilesMatchingAntPaths(List<String> includes, List<String> excludes) throws IOException {
+        return findFilesMatchingAntPaths(includes, excludes, file -> {});
+    }
+
+    /**
+     * The same as {@link #findFilesMatchingAntPaths(List, List)}, but also passes each matching file to the
+     * {@code listener} as soon as it is found, so that the caller can start processing it before the walk ends.
+     *
+     * @param listener - receives each matching file once, in no particular order, and possibly from several threads
+     *                   at once if the {@link #setParallelism(int) parallelism} is greater than one
+     */
+    public List<List<Path>> findFilesMatchingAntPaths(List<String> includes, List<String> excludes, Consumer<Path> listener) throws IOException {
+
+        if (includes == null) {
+            throw new IllegalArgumentException("Provided includes are null");
+        }
+        if (excludes == null) {
+            throw new IllegalArgumentException("Provided excludes are null");
+        }
+
+        List<Path> bases = new ArrayList<>();
+        List<List<Path>> files = new ArrayList<>();
+        for (String include : includes) {
+            if (include == null) {
+                throw new IllegalArgumentException("Provided ant path is null");
+            }
+            bases.add(Path.of(extractExactDirectory(Path.of(include))));
+            files.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        Matches matched = new Matches(files, listener);
+        PatternSet patterns = new PatternSet(includes, excludes, bases, maxDepth);
+        for (Path root : patterns.roots()) {
+            walk(root, patterns, useIgnoreFiles ? ancestorIgnoreRules(root) : null, matched);
+        }
+
+        for (List<Path> includeFiles : files) {
+            includeFiles.sort(Comparator.naturalOrder());
+        }
+        return files;
+    }
+
+    /**
+     * Walks the tree from the root, listing the sibling directories concurrently on the fork join pool if the
+     * {@link #parallelism} is greater than one. The directories that have not changed since the previous walk are
+     * not listed, if there is the {@link #scanIndex}
+     */
+    private void walk(Path root, PatternSet patterns, IgnoreRules ignoreRules, Matches matched) throws IOException {
+        BasicFileAttributes attrs = readAttributes(root);
+        if (!attrs.isDirectory()) {
+            visit(root, patterns, ignoreRules, matched);
+            return;
+        }
+        if (patterns.maxDepthBelow(root) == 0) {
+            return;
+        }
+
+        DirectoryTask rootTask = new DirectoryTask(
+          root, attrs, 0, patterns.maxDepthBelow(root), patterns, ignoreRules, new Ancestor(root, attrs.fileKey(), null), matched
+        );
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            if (pool == null) {
+                rootTask.compute();
+            } else {
+                pool.invoke(rootTask);
+            }
+        } catch (UncheckedIOException e) {
+            // the exception thrown by another thread is rethrown wrapped into the copy of itself
+            Throwable cause = e;
+            while (!(cause instanceof IOException)) {
+                cause = cause.getCause();
+            }
+            throw (IOException) cause;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private List<ScanIndex.Entry> list(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (scanIndex != null) {
+            List<ScanIndex.Entry> indexed = scanIndex.get(dir, attrs.lastModifiedTime());
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+
+        listedDirectories.increment();
+        List<ScanIndex.Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                BasicFileAttributes entryAttrs = readAttributes(entry);
+                entries.add(new ScanIndex.Entry(entry.getFileName().toString(), entryAttrs.isDirectory(), entryAttrs));
+            }
+        }
+        if (scanIndex != null) {
+            scanIndex.put(dir, attrs.lastModifiedTime(), entries);
+        }
+        return entries;
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        if (!followLinks) {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // broken link, reported as the link itself
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    private boolean shouldEnter(Path dir, PatternSet patterns, IgnoreRules ignoreRules) {
+        return patterns.canContainMatches(dir) && !(useIgnoreFiles && IgnoreRules.isIgnored(ignoreRules, dir, true));
+    }
+
+    private void visit(Path file, PatternSet patterns, IgnoreRules ignoreRules, Matches matched) {
+        if (useIgnoreFiles && IgnoreRules.isIgnored(ignoreRules, file, false)) {
+            return;
+        }
+
+        scannedFiles.increment();
+        matched.add(patterns.matchingIncludes(file), file);
+    }
+
+    /**
+     * The files found so far for each include pattern
+     */
+    private static final class Matches {
+
+        private final List<List<Path>> files;
+
+        private final Consumer<Path> listener;
+
+        private Matches(List<List<Path>> files, Consumer<Path> listener) {
+            this.files = files;
+            this.listener = listener;
+        }
+
+        void add(int[] includes, Path file) {
+            if (includes.length == 0) {
+                return;
+            }
+            for (int include : includes) {
+                files.get(include).add(file);
+            }
+            listener.accept(file);
+        }
+    }
+
+    /**
+     * The directory being walked, and the directories above it, to detect the cycles of symbolic links
+     */
+    private static final class Ancestor {
+
+        private final Path path;
+
+        private final Object fileKey;
+
+        private final Ancestor parent;
+
+        private Ancestor(Path path, Object fileKey, Ancestor parent) {
+            this.path = path;
+            this.fileKey = fileKey;
+            this.parent = parent;
+        }
+
+        boolean contains(Path dir, Object dirFileKey) throws IOException {
+            for (Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (dirFileKey != null && ancestor.fileKey != null ? dirFileKey.equals(ancestor.fileKey) : Files.isSameFile(dir, ancestor.path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Lists the single directory, visits its files and walks its subdirectories, either forking the tasks for them,
+     * or, if the task is not run by the fork join pool, one by one
+     */
+    private final class DirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+
+        private final transient BasicFileAttributes attrs;
+
+        private final int depth;
+
+        private final int maxDepth;
+
+        private final transient PatternSet patterns;
 
-        String s = extractExactDirectory(Path.of(antPathPattern));
+        /**
+         * The rules of the parent directories
+         */
+        private final transient IgnoreRules parentIgnoreRules;
 
-        return Files
-          .walk(Path.of(s), FileVisitOption.FOLLOW_LINKS)
-          .filter(currentFile -> {
+        private final transient Ancestor ancestors;
 
-              if (currentFile.toFile().isDirectory()) {
-                  return false;
-              }
+        private final transient Matches matched;
 
-              return antPathMatcher.match(antPathPattern, currentFile.toString());
-          });
+        private DirectoryTask(Path dir, BasicFileAttributes attrs, int depth, int maxDepth, PatternSet patterns, IgnoreRules parentIgnoreRules,
+                              Ancestor ancestors, Matches matched) {
+            this.dir = dir;
+            this.attrs = attrs;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.patterns = patterns;
+            this.parentIgnoreRules = parentIgnoreRules;
+            this.ancestors = ancestors;
+            this.matched = matched;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try {
+                List<ScanIndex.Entry> entries = list(dir, attrs);
+                IgnoreRules ignoreRules = useIgnoreFiles && hasIgnoreFile(entries) ? IgnoreRules.load(dir, parentIgnoreRules) : parentIgnoreRules;
+
+                for (ScanIndex.Entry entry : entries) {
+                    Path path = dir.resolve(entry.name);
+                    if (!entry.directory) {
+                        visit(path, patterns, ignoreRules, matched);
+                        continue;
+                    }
+                    if (depth + 1 >= maxDepth || !shouldEnter(path, patterns, ignoreRules)) {
+                        continue;
+                    }
+                    BasicFileAttributes entryAttrs = entry.attributes != null ? entry.attributes : readAttributes(path);
+                    if (!entryAttrs.isDirectory() || followLinks && ancestors.contains(path, entryAttrs.fileKey())) {
+                        continue;
+                    }
+                    subdirectories.add(new DirectoryTask(
+                      path, entryAttrs, depth + 1, maxDepth, patterns, ignoreRules, new Ancestor(path, entryAttrs.fileKey(), ancestors), matched
+                    ));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (inForkJoinPool()) {
+                invokeAll(subdirectories);
+            } else {
+                subdirectories.forEach(DirectoryTask::compute);
+            }
+        }
+
+        private boolean hasIgnoreFile(List<ScanIndex.Entry> entries) {
+            for (ScanIndex.Entry entry : entries) {
+                if (!entry.directory && IgnoreRules.FILE_NAMES.contains(entry.name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The ignore files of the directories above the walked one apply as well, up to the root of the git repository.
+     * Outside of any git repository, only the ignore files of the walked directory and below it are honoured
+     *
+     * @return the rules of the ancestors of the given directory, or null if they have none
+     */
+    private IgnoreRules ancestorIgnoreRules(Path directory) throws IOException {
+        Path repositoryRoot = directory.toAbsolutePath().getParent();
+        while (repositoryRoot != null && !Files.exists(repositoryRoot.resolve(IgnoreRules.GIT_DIRECTORY))) {
+            repositoryRoot = repositoryRoot.getParent();
+        }
+        if (repositoryRoot == null) {
+            return null;
+        }
+
+        List<Path> ancestors = new ArrayList<>();
+        for (Path ancestor = directory.toAbsolutePath().getParent(); ancestor.startsWith(repositoryRoot); ancestor = ancestor.getParent()) {
+            ancestors.add(0, ancestor);
+            if (ancestor.equals(repositoryRoot)) {
+                break;
+            }
+        }
+
+        IgnoreRules rules = null;
+        for (Path ancestor : ancestors) {
+            rules = IgnoreRules.load(ancestor, rules);
+        }
+        return rules;
+    }
+
+    /**
+     * @param scanIndex the index of the directories walked by the previous builds, the directories that have not changed
+     *                  since are not listed again. The index is updated with the walked directories, but not saved
+     */
+    public void setScanIndex(ScanIndex scanIndex) {
+        this.scanIndex = scanIndex;
+    }
+
+    /**
+     * @return number of directories, that were listed by this parser so far, not counting the ones taken from the index
+     */
+    public long getListedDirectoriesCount() {
+        return listedDirectories.sum();
+    }
+
+    /**
+     * @param parallelism number of threads, that list the directories concurrently. The found files are the same,
+     *                    and in the same order, whatever the parallelism is
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param useIgnoreFiles if true, the files and directories ignored by the <code>.gitignore</code> and <code>.ignore</code>
+     *                       files are skipped, and the ignored directories are not walked at all
+     */
+    public void setUseIgnoreFiles(boolean useIgnoreFiles) {
+        this.useIgnoreFiles = useIgnoreFiles;
+    }
+
+    /**
+     * @param maxDepth maximal number of directory levels below the exact directory of the pattern, that are walked
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth must not be negative");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param followLinks if true, the symbolic links are followed while walking. The links, that point to one of their
+     *                    own parent directories, are skipped rather than walked in cycles
+     */
+    public void setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+
+    /**
+     * @return number of files (not directories), that were tested against the patterns by this parser so far
+     */
+    public long getScannedFilesCount() {
+        return scannedFiles.sum();
     }
 
     public String extractExactDirectory(Path path) {
      
-        Assert.notNull(path, "Passed path must not be null");
+        if (path == null) {
+            throw new IllegalArgumentException("Passed path must not be null");
+        }
 
         if (path.toString().isEmpty()) {
             return "/";
@@ -100,10 +479,6 @@ public class PathParser {
             return false;
         }
 
-        if (pathComponent.contains("**") || pathComponent.contains("*") || pathComponent.contains("?")) {
-            return true;
-        }
-
-        return characterClassesRegexp.matcher(pathComponent).find();
+        return AntPattern.containsWildcards(pathComponent);
     }
 }
@@ -0,0 +1,150 @@
+package io.polivakha.mojo.properties.utils;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiled include and exclude ant path patterns, that are matched against the paths of a single walk of the file
+ * tree. Each include pattern is walked from its own exact directory, and the exact directories that lie inside of
+ * another one are coalesced, so that every directory is visited only once, however many patterns cover it.
+ */
+final class PatternSet {
+
+    private final List<AntPattern> includes = new ArrayList<>();
+
+    private final List<Path> bases;
+
+    private final List<AntPattern> excludes = new ArrayList<>();
+
+    private final List<Path> roots = new ArrayList<>();
+
+    private final int maxDepth;
+
+    /**
+     * @param includes include patterns, their indexes are reported by {@link #matchingIncludes(Path)}
+     * @param excludes exclude patterns, the files matching any of them are never reported
+     * @param bases exact directories of the include patterns, in the same order
+     * @param maxDepth maximal number of directory levels below the exact directory of each include pattern
+     */
+    PatternSet(List<String> includes, List<String> excludes, List<Path> bases, int maxDepth) {
+        this.bases = bases;
+        this.maxDepth = maxDepth;
+
+        for (String include : includes) {
+            this.includes.add(AntPattern.compile(include, File.separator));
+        }
+        for (String exclude : excludes) {
+            this.excludes.add(AntPattern.compile(withoutLeadingSeparator(exclude), File.separator));
+        }
+
+        for (Path base : bases) {
+            if (roots.stream().anyMatch(base::startsWith)) {
+                continue;
+            }
+            roots.removeIf(root -> root.startsWith(base));
+            roots.add(base);
+        }
+    }
+
+    /**
+     * @return the directories to walk: exact directories of the include patterns, that are not inside another one
+     */
+    List<Path> roots() {
+        return roots;
+    }
+
+    /**
+     * @return the maximal number of directory levels that has to be walked below the given root
+     */
+    int maxDepthBelow(Path root) {
+        long depth = 0;
+        for (Path base : bases) {
+            if (base.startsWith(root)) {
+                depth = Math.max(depth, (long) base.getNameCount() - root.getNameCount() + maxDepth);
+            }
+        }
+        return (int) Math.min(depth, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param dir directory below one of the {@link #roots()}
+     * @return false if no file below the directory can match, so it is not worth entering
+     */
+    boolean canContainMatches(Path dir) {
+        if (isExcludedDirectory(dir)) {
+            return false;
+        }
+
+        String path = dir.toString();
+        for (int i = 0; i < includes.size(); i++) {
+            Path base = bases.get(i);
+            if (base.startsWith(dir)) {
+                return true;
+            }
+            if (dir.startsWith(base) && isWithinDepth(base, dir) && includes.get(i).matchesStart(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param file file below one of the {@link #roots()}
+     * @return indexes of the include patterns, that the file matches, empty if the file is excluded
+     */
+    int[] matchingIncludes(Path file) {
+        String path = file.toString();
+        int[] matching = new int[includes.size()];
+        int count = 0;
+        for (int i = 0; i < includes.size(); i++) {
+            Path base = bases.get(i);
+            if (file.startsWith(base) && isWithinDepth(base, file) && includes.get(i).matches(path)) {
+                matching[count++] = i;
+            }
+        }
+        if (count == 0 || isExcluded(path)) {
+            return new int[0];
+        }
+        return count == matching.length ? matching : Arrays.copyOf(matching, count);
+    }
+
+    private boolean isWithinDepth(Path base, Path path) {
+        return path.getNameCount() - base.getNameCount() <= maxDepth;
+    }
+
+    private boolean isExcluded(String path) {
+        String relative = withoutLeadingSeparator(path);
+        for (AntPattern exclude : excludes) {
+            if (exclude.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The directory is excluded, if the exclude pattern ending with <code>**</code> matches it, so that all its content
+     * is excluded as well
+     */
+    private boolean isExcludedDirectory(Path dir) {
+        String relative = withoutLeadingSeparator(dir.toString());
+        for (AntPattern exclude : excludes) {
+            if (exclude.toString().endsWith("**") && exclude.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The excludes are matched against the paths without the leading separator, so that both the absolute
+     * <code>/repo/**&#47;target/**</code> and the relative <code>**&#47;target/**</code> patterns match
+     * the <code>/repo/module/target</code> directory
+     */
+    private static String withoutLeadingSeparator(String path) {
+        return path.startsWith(File.separator) ? path.substring(File.separator.length()) : path;
+    }
+}
@@ -0,0 +1,192 @@
+package io.polivakha.mojo.properties.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent index of the directories walked by the {@link PathParser}, that survives between the builds. For each
+ * directory it keeps the modification time and the entries, so the directory that has not been modified since the
+ * previous build is not listed again: its entries are taken from the index, and only its subdirectories are checked.
+ * On a tree, that has not changed, the walk therefore costs one <code>stat</code> per walked directory.
+ * <p>
+ * The directories modified within {@link #RACY_MARGIN_MILLIS} before the walk are not indexed, as the file systems
+ * with coarse timestamps could modify them again without changing the modification time. The unreadable index is
+ * just ignored, so it is always safe to delete it.
+ */
+public final class ScanIndex {
+
+    private static final int MAGIC = 0x5343414E;
+
+    private static final int VERSION = 1;
+
+    static final long RACY_MARGIN_MILLIS = 2000;
+
+    private final Path file;
+
+    private final boolean followLinks;
+
+    private final long walkStartedMillis = System.currentTimeMillis();
+
+    private final Map<Path, Listing> previous;
+
+    private final Map<Path, Listing> current = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private ScanIndex(Path file, boolean followLinks, Map<Path, Listing> previous) {
+        this.file = file;
+        this.followLinks = followLinks;
+        this.previous = previous;
+    }
+
+    /**
+     * @param file the file of the index, it is fine if it does not exist yet
+     * @param followLinks if the walk follows the symbolic links, the index of the walk that did not is not used
+     * @return the index, read from the file, or an empty one if the file does not exist or is unreadable
+     */
+    public static ScanIndex load(Path file, boolean followLinks) {
+        Map<Path, Listing> listings = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readBoolean() == followLinks) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Path directory = Path.of(in.readUTF());
+                    long modified = in.readLong();
+                    int size = in.readInt();
+                    List<Entry> entries = new ArrayList<>(size);
+                    for (int j = 0; j < size; j++) {
+                        entries.add(new Entry(in.readUTF(), in.readBoolean(), null));
+                    }
+                    listings.put(directory, new Listing(modified, Collections.unmodifiableList(entries)));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // the first walk
+        } catch (IOException | RuntimeException e) {
+            // corrupted index, it will be overwritten after the walk
+            listings.clear();
+        }
+        return new ScanIndex(file, followLinks, listings);
+    }
+
+    /**
+     * @param directory walked directory
+     * @param modified current modification time of the directory
+     * @return the entries of the directory, or null if the directory is not indexed, or has been modified since
+     */
+    List<Entry> get(Path directory, FileTime modified) {
+        Listing listing = previous.get(directory);
+        if (listing == null || listing.modified != modifiedOf(modified)) {
+            return null;
+        }
+        current.put(directory, listing);
+        hits.increment();
+        return listing.entries;
+    }
+
+    /**
+     * @param directory listed directory
+     * @param modified modification time of the directory, read before it was listed
+     * @param entries the entries of the directory
+     */
+    void put(Path directory, FileTime modified, List<Entry> entries) {
+        if (modified.toMillis() > walkStartedMillis - RACY_MARGIN_MILLIS) {
+            return;
+        }
+        current.put(directory, new Listing(modifiedOf(modified), entries));
+    }
+
+    /**
+     * @return number of directories, that were not listed, as they have not changed since they were indexed
+     */
+    public long getHitsCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Writes the directories walked since this index was loaded, the directories that were not walked are dropped
+     */
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(followLinks);
+                out.writeInt(current.size());
+                for (Map.Entry<Path, Listing> listing : current.entrySet()) {
+                    out.writeUTF(listing.getKey().toString());
+                    out.writeLong(listing.getValue().modified);
+                    out.writeInt(listing.getValue().entries.size());
+                    for (Entry entry : listing.getValue().entries) {
+                        out.writeUTF(entry.name);
+                        out.writeBoolean(entry.directory);
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long modifiedOf(FileTime modified) {
+        return modified.to(TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Listing {
+
+        private final long modified;
+
+        private final List<Entry> entries;
+
+        private Listing(long modified, List<Entry> entries) {
+            this.modified = modified;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Entry of the directory: a file, or a subdirectory
+     */
+    static final class Entry {
+
+        final String name;
+
+        final boolean directory;
+
+        /**
+         * The attributes read while listing the directory, null if the entry comes from the index
+         */
+        final BasicFileAttributes attributes;
+
+        Entry(String name, boolean directory, BasicFileAttributes attributes) {
+            this.name = name;
+            this.directory = directory;
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.polivakha.mojo.properties;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import io.polivakha.mojo.properties.PlaceholderTokenizer.Segment;
+
+public class PlaceholderTokenizerTest {
+
+    @Test
+    public void givenValueWithoutPlaceholders_whenTokenized_thenSingleLiteralReturned() {
+        List<Segment> segments = PlaceholderTokenizer.tokenize("just a $ value }");
+
+        Assertions.assertThat(segments).hasSize(1);
+        Assertions.assertThat(segments.get(0).getLiteral()).isEqualTo("just a $ value }");
+    }
+
+    @Test
+    public void givenEmptyValue_whenTokenized_thenNoSegmentsReturned() {
+        Assertions.assertThat(PlaceholderTokenizer.tokenize("")).isEmpty();
+    }
+
+    @Test
+    public void givenSeveralPlaceholders_whenTokenized_thenLiteralsAndReferencesAlternate() {
+        List<Segment> segments = PlaceholderTokenizer.tokenize("http://${host}:${port}/");
+
+        Assertions.assertThat(segments).extracting(Segment::toString).containsExactly("http://", "${host}", ":", "${port}", "/");
+        Assertions.assertThat(segments.get(1).getPlainKey()).isEqualTo("host");
+        Assertions.assertThat(segments.get(3).getPlainKey()).isEqualTo("port");
+    }
+
+    @Test
+    public void givenNestedPlaceholder_whenTokenized_thenKeyOfReferenceContainsNestedReference() {
+        List<Segment> segments = PlaceholderTokenizer.tokenize("${a.${b}}");
+
+        Assertions.assertThat(segments).hasSize(1);
+        Segment reference = segments.get(0);
+        Assertions.assertThat(reference.getPlainKey()).isNull();
+        Assertions.assertThat(reference.getKeyParts()).extracting(Segment::toString).containsExactly("a.", "${b}");
+    }
+
+    @Test
+    public void givenUnclosedPlaceholder_whenTokenized_thenItIsKeptAsLiteral() {
+        List<Segment> segments = PlaceholderTokenizer.tokenize("${malformed ${p}");
+
+        Assertions.assertThat(segments).extracting(Segment::toString).containsExactly("${malformed ", "${p}");
+        Assertions.assertThat(segments.get(0).isLiteral()).isTrue();
+    }
+
+    @Test
+    public void givenEmptyPlaceholder_whenTokenized_thenItIsKeptAsLiteral() {
+        List<Segment> segments = PlaceholderTokenizer.tokenize("a${}b");
+
+        Assertions.assertThat(segments).hasSize(1);
+        Assertions.assertThat(segments.get(0).getLiteral()).isEqualTo("a${}b");
+    }
+}
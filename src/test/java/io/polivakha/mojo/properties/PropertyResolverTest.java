@@ -26,6 +26,9 @@ import static org.junit.Assert.*;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import io.polivakha.mojo.properties.exception.PropertyCircularDefinitionException;
@@ -166,4 +169,110 @@ public class PropertyResolverTest {
     public void missingPropertyIsTolerated() {
         assertNull(resolver.getPropertyValue("non-existent", new Properties(), null));
     }
+
+    @Test
+    public void givenSharedBaseKey_whenResolvedOnce_thenLaterLookupsReuseResolvedValue() {
+        Properties properties = new Properties();
+        properties.setProperty("repo.root", "/repo");
+        properties.setProperty("module.a", "${repo.root}/a");
+        properties.setProperty("module.b", "${repo.root}/b");
+
+        Assertions.assertThat(resolver.getPropertyValue("module.a", properties, new Properties())).isEqualTo("/repo/a");
+
+        // the resolver is bound to a single resolution pass, so the already resolved base key is not expanded again
+        properties.setProperty("repo.root", "/changed");
+
+        Assertions.assertThat(resolver.getPropertyValue("module.b", properties, new Properties())).isEqualTo("/repo/b");
+        Assertions.assertThat(new PropertyResolver().getPropertyValue("module.b", properties, new Properties())).isEqualTo("/changed/b");
+    }
+
+    @Test
+    public void givenNestedPlaceholder_whenResolving_thenInnerPlaceholderResolvedFirst() {
+        Properties properties = new Properties();
+        properties.setProperty("env", "prod");
+        properties.setProperty("db.url.prod", "jdbc:prod");
+        properties.setProperty("db.url", "${db.url.${env}}");
+        properties.setProperty("missing", "${db.url.${unknown}}");
+
+        Assertions.assertThat(resolver.getPropertyValue("db.url", properties, new Properties())).isEqualTo("jdbc:prod");
+        Assertions.assertThat(resolver.getPropertyValue("missing", properties, new Properties())).isEqualTo("${db.url.${unknown}}");
+    }
+
+    @Test
+    public void givenSeveralKeys_whenResolvingAll_thenAllResolvedInOrderOfKeys() {
+        Properties properties = new Properties();
+        properties.setProperty("url", "http://${host}:${port}/${path}");
+        properties.setProperty("host", "${domain}");
+        properties.setProperty("domain", "localhost");
+        properties.setProperty("port", "8080");
+        properties.setProperty("path", "${unknown}");
+
+        Map<String, String> resolved = resolver.resolveAll(List.of("url", "port", "absent"), properties, new Properties());
+
+        Assertions.assertThat(resolved).containsExactly(
+          Assertions.entry("url", "http://localhost:8080/${unknown}"),
+          Assertions.entry("port", "8080"),
+          Assertions.entry("absent", null)
+        );
+    }
+
+    @Test
+    public void givenSeveralCircularDefinitions_whenResolvingAll_thenAllOfThemReportedAtOnce() {
+        Properties properties = new Properties();
+        properties.setProperty("ok", "value");
+        properties.setProperty("self", "${self}");
+        properties.setProperty("a", "${b}");
+        properties.setProperty("b", "x-${c}");
+        properties.setProperty("c", "${a}-y");
+
+        Assertions.assertThatThrownBy(
+          () -> resolver.resolveAll(List.of("ok", "self", "a"), properties, new Properties())
+        )
+          .isInstanceOf(PropertyCircularDefinitionException.class)
+          .hasMessageContaining("self --> self")
+          .hasMessageContaining("a --> b --> c --> a");
+    }
+
+    @Test
+    public void givenVeryDeepReferenceChain_whenResolving_thenResolvedWithoutStackOverflow() {
+        Properties properties = new Properties();
+        int depth = 50_000;
+        for (int i = 0; i < depth; i++) {
+            properties.setProperty("p" + i, "${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p" + depth, "bottom");
+
+        Assertions.assertThat(resolver.getPropertyValue("p0", properties, new Properties())).isEqualTo("bottom");
+    }
+
+    @Test
+    public void givenCircularDefinitionBehindRegularProperty_whenResolving_thenOnlyCycleIsReported() {
+        Properties properties = new Properties();
+        properties.setProperty("entry", "${a}");
+        properties.setProperty("a", "${b}");
+        properties.setProperty("b", "${a}");
+
+        Assertions.assertThatThrownBy(() -> resolver.getPropertyValue("entry", properties, new Properties()))
+          .isInstanceOf(PropertyCircularDefinitionException.class)
+          .hasMessageEndingWith("a --> b --> a");
+    }
+
+    @Test
+    public void givenChainedPropertySet_whenResolvingInParallel_thenResultMatchesSequentialResolution() {
+        Properties properties = new Properties();
+        List<String> keys = new ArrayList<>();
+        properties.setProperty("base", "/repo");
+        for (int i = 0; i < 300; i++) {
+            properties.setProperty("module." + i, "${base}/module-" + i);
+            properties.setProperty("chain." + i, i == 0 ? "${base}" : "${chain." + (i - 1) + "}:${module." + i + "}");
+            keys.add("module." + i);
+            keys.add("chain." + i);
+        }
+
+        Map<String, String> sequential = new PropertyResolver().resolveAll(keys, properties, new Properties());
+        Map<String, String> parallel = new PropertyResolver(4).resolveAll(keys, properties, new Properties());
+
+        Assertions.assertThat(parallel).containsExactlyEntriesOf(sequential);
+        Assertions.assertThat(parallel.get("module.42")).isEqualTo("/repo/module-42");
+    }
 }
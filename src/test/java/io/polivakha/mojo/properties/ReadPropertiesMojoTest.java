@@ -9,10 +9,14 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -21,6 +25,8 @@ import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
 public class ReadPropertiesMojoTest {
     private static final String NEW_LINE = System.lineSeparator();
 
@@ -119,6 +125,208 @@ public class ReadPropertiesMojoTest {
         Assertions.assertThat(three).isEqualTo("5.8.8");
     }
 
+    @Test
+    public void givenExcludes_whenReading_thenExcludedFilesAreNotLoaded() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("mytmp");
+        Files.write(tempDirectory.resolve("app.properties"), "app.version=1.0\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(tempDirectory.resolve("local.properties"), "app.version=local\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        readPropertiesMojo.setIncludes(new String[]{Path.of(tempDirectory.toString(), "*.properties").toString()});
+        readPropertiesMojo.setExcludes(new String[]{"**/local.properties"});
+        readPropertiesMojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("app.version")).isEqualTo("1.0");
+    }
+
+    @Test
+    public void givenManyFilesLoadedConcurrently_whenReading_thenLastDeclaredFileTakesPrecedence() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("concurrent");
+        File[] files = new File[50];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = Files.createFile(tempDirectory.resolve("file-" + i + ".properties")).toFile();
+            try (FileWriter writer = new FileWriter(files[i])) {
+                writer.write("shared=" + i + NEW_LINE);
+                writer.write("key." + i + "=" + i + NEW_LINE);
+            }
+        }
+
+        readPropertiesMojo.setLoadThreads(4);
+        readPropertiesMojo.setFiles(files);
+        readPropertiesMojo.execute();
+
+        Properties projectProperties = projectStub.getProperties();
+        Assertions.assertThat(projectProperties.getProperty("shared")).isEqualTo("49");
+        for (int i = 0; i < files.length; i++) {
+            Assertions.assertThat(projectProperties.getProperty("key." + i)).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    public void givenPipelinedIncludes_whenReading_thenFilesAreMergedInTheOrderOfPatterns() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("pipelined");
+        for (int i = 0; i < 60; i++) {
+            Path directory = Files.createDirectories(tempDirectory.resolve("d" + i % 3));
+            Files.write(directory.resolve(String.format("file-%02d.properties", i)), ("shared=" + i + NEW_LINE + "key." + i + "=" + i + NEW_LINE).getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        readPropertiesMojo.setLoadThreads(4);
+        readPropertiesMojo.setIncludesParallelism(2);
+        readPropertiesMojo.setPipelineIncludes(true);
+        readPropertiesMojo.setIncludes(new String[]{
+          Path.of(tempDirectory.toString(), "**", "d0", "*.properties").toString(),
+          Path.of(tempDirectory.toString(), "**", "*.properties").toString()
+        });
+        readPropertiesMojo.execute();
+
+        Properties projectProperties = projectStub.getProperties();
+        Assertions.assertThat(projectProperties.getProperty("shared")).isEqualTo("59");
+        for (int i = 0; i < 60; i++) {
+            Assertions.assertThat(projectProperties.getProperty("key." + i)).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    public void givenSameFileReachedSeveralWays_whenReading_thenItIsReadOnceAndKeepsEachOverridePosition() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("dedup");
+        Path base = Files.write(tempDirectory.resolve("base.properties"), "layer=base\n".getBytes(StandardCharsets.ISO_8859_1));
+        Path override = Files.write(tempDirectory.resolve("override.properties"), "layer=override\n".getBytes(StandardCharsets.ISO_8859_1));
+        File report = new File(Files.createTempDirectory("metrics").toFile(), "report.json");
+
+        readPropertiesMojo.setWriteMetricsReport(true);
+        readPropertiesMojo.setMetricsReportFile(report);
+        readPropertiesMojo.setFiles(new File[]{base.toFile(), override.toFile()});
+        readPropertiesMojo.setUrls(new String[]{base.toUri().toString()});
+        readPropertiesMojo.setIncludes(new String[]{Path.of(tempDirectory.toString(), "base.*").toString()});
+        readPropertiesMojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("layer")).isEqualTo("base");
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        Assertions.assertThat(json)
+          .contains("\"resourcesLoaded\": 4")
+          .contains("\"resourcesReused\": 2")
+          .contains("\"bytesRead\": " + (Files.size(base) + Files.size(override)));
+    }
+
+    @Test
+    public void givenUtf8Encoding_whenReading_thenNonAsciiValuesAreDecoded() throws Exception {
+        File file = File.createTempFile("prop-test", ".properties");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "greeting=gr\u00fc\u00dfe \u00e0 tous\nescaped=\\u00e9".getBytes(StandardCharsets.UTF_8));
+
+        readPropertiesMojo.setEncoding("UTF-8");
+        readPropertiesMojo.setFiles(new File[] {file});
+        readPropertiesMojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("greeting")).isEqualTo("gr\u00fc\u00dfe \u00e0 tous");
+        Assertions.assertThat(projectStub.getProperties().getProperty("escaped")).isEqualTo("\u00e9");
+    }
+
+    @Test
+    public void givenUnsupportedEncoding_whenReading_thenBuildFails() {
+        readPropertiesMojo.setEncoding("UTF-16");
+
+        Assertions.assertThatThrownBy(() -> readPropertiesMojo.execute()).isInstanceOf(MojoFailureException.class);
+    }
+
+    @Test
+    public void givenParseCache_whenReadingUnchangedFileAgain_thenItIsLoadedFromCache() throws Exception {
+        File cacheDirectory = Files.createTempDirectory("parse-cache").toFile();
+        File report = new File(cacheDirectory, "report.json");
+        File file = getPropertyFileForTesting();
+
+        for (int build = 0; build < 2; build++) {
+            ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+            mojo.setProject(new MavenProject());
+            mojo.setUseParseCache(true);
+            mojo.setParseCacheDirectory(cacheDirectory);
+            mojo.setWriteMetricsReport(true);
+            mojo.setMetricsReportFile(report);
+            mojo.setFiles(new File[] {file});
+            mojo.execute();
+        }
+
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        Assertions.assertThat(json).contains("\"parseCacheHits\": 1").contains("\"keysLoaded\": 3");
+    }
+
+    @Test
+    public void givenUrl_whenReading_thenItIsFetchedOnlyOnce() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/remote.properties", exchange -> {
+            requests.incrementAndGet();
+            byte[] content = "remote=value".getBytes(StandardCharsets.ISO_8859_1);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content);
+            }
+        });
+        server.start();
+        try {
+            readPropertiesMojo.setUrls(new String[] {"http://127.0.0.1:" + server.getAddress().getPort() + "/remote.properties"});
+            readPropertiesMojo.execute();
+        } finally {
+            server.stop(0);
+        }
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("remote")).isEqualTo("value");
+        Assertions.assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenQuietMode_whenUrlIsUnreachable_thenItIsSkipped() throws Exception {
+        readPropertiesMojo.setQuiet(true);
+        readPropertiesMojo.setUrlRetries(0);
+        readPropertiesMojo.setUrls(new String[] {"http://127.0.0.1:1/unreachable.properties"});
+        readPropertiesMojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties()).isEmpty();
+    }
+
+    @Test
+    public void givenQuietMode_whenServerFails_thenUrlIsSkipped() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/failing.properties", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            readPropertiesMojo.setQuiet(true);
+            readPropertiesMojo.setUrlRetries(0);
+            readPropertiesMojo.setUrls(new String[] {"http://127.0.0.1:" + server.getAddress().getPort() + "/failing.properties"});
+            readPropertiesMojo.execute();
+        } finally {
+            server.stop(0);
+        }
+
+        Assertions.assertThat(projectStub.getProperties()).isEmpty();
+    }
+
+    @Test
+    public void givenUnreachableUrl_whenReading_thenBuildFails() {
+        readPropertiesMojo.setUrlRetries(0);
+        readPropertiesMojo.setUrls(new String[] {"http://127.0.0.1:1/unreachable.properties"});
+
+        Assertions.assertThatThrownBy(() -> readPropertiesMojo.execute())
+          .isInstanceOf(MojoExecutionException.class)
+          .hasMessageContaining("could not be loaded");
+    }
+
+    @Test
+    public void givenLocationsOfDifferentKinds_whenReading_thenTheyAreLoadedInDeclaredOrder() throws Exception {
+        Path file = Files.createTempFile("location", ".properties");
+        Files.write(file, "first=file\nsecond=file\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        readPropertiesMojo.setLocations(new String[]{file.toString(), "memory:second=memory;third=${first}"});
+        readPropertiesMojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties())
+          .containsEntry("first", "file")
+          .containsEntry("second", "memory")
+          .containsEntry("third", "file");
+    }
+
     @Test
     public void readPropertiesWithoutKeyprefix() throws Exception {
         try ( FileReader fr = new FileReader( getPropertyFileForTesting() ) )
@@ -178,6 +386,116 @@ public class ReadPropertiesMojoTest {
         }
     }
 
+    @Test
+    public void givenCircularlyDefinedProperties_whenReading_thenBuildFails() throws IOException {
+        File file = File.createTempFile("prop-test", ".properties");
+        file.deleteOnExit();
+
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("first=${second}" + NEW_LINE);
+            writer.write("second=${first}" + NEW_LINE);
+        }
+
+        readPropertiesMojo.setFiles(new File[] {file});
+
+        Assertions.assertThatThrownBy(() -> readPropertiesMojo.execute())
+          .isInstanceOf(MojoFailureException.class)
+          .hasMessageContaining("Circular property definition detected");
+    }
+
+    @Test
+    public void givenEnvironmentReferenceInTheMiddleOfValue_whenReading_thenEnvironmentIsQueriedOnceAndReferenceResolved() throws Exception {
+        AtomicInteger environmentQueries = new AtomicInteger();
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo() {
+            @Override
+            Properties getSystemEnvVars() {
+                environmentQueries.incrementAndGet();
+                Properties environment = new Properties();
+                environment.setProperty("STAGE", "prod");
+                return environment;
+            }
+        };
+        mojo.setProject(projectStub);
+
+        File file = File.createTempFile("prop-test", ".properties");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("url=http://${env.STAGE}.example.com" + NEW_LINE);
+            writer.write("db=${db.${env.STAGE}}" + NEW_LINE);
+            writer.write("db.prod=jdbc:prod" + NEW_LINE);
+        }
+
+        mojo.setFiles(new File[] {file});
+        mojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("url")).isEqualTo("http://prod.example.com");
+        Assertions.assertThat(projectStub.getProperties().getProperty("db")).isEqualTo("jdbc:prod");
+        Assertions.assertThat(environmentQueries).hasValue(1);
+    }
+
+    @Test
+    public void givenNoEnvironmentReferences_whenReading_thenEnvironmentIsNotQueried() throws Exception {
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo() {
+            @Override
+            Properties getSystemEnvVars() {
+                throw new AssertionError("Environment must not be queried");
+            }
+        };
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {getPropertyFileForTesting()});
+        mojo.execute();
+
+        Assertions.assertThat(projectStub.getProperties().getProperty("test.property1")).isEqualTo("value1");
+    }
+
+    @Test
+    public void givenResolveLoadedPropertiesOnly_whenReading_thenOnlyLoadedPropertiesAndTheirDependenciesAreResolved() throws Exception {
+        projectStub.getProperties().setProperty("pom.root", "/repo");
+        projectStub.getProperties().setProperty("pom.base", "${pom.root}/base");
+        projectStub.getProperties().setProperty("pom.unrelated", "${pom.root}/unrelated");
+
+        File file = File.createTempFile("prop-test", ".properties");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("loaded=${pom.base}/loaded" + NEW_LINE);
+        }
+
+        readPropertiesMojo.setResolveLoadedPropertiesOnly(true);
+        readPropertiesMojo.setFiles(new File[] {file});
+        readPropertiesMojo.execute();
+
+        Properties projectProperties = projectStub.getProperties();
+        Assertions.assertThat(projectProperties.getProperty("loaded")).isEqualTo("/repo/base/loaded");
+        Assertions.assertThat(projectProperties.getProperty("pom.base")).isEqualTo("/repo/base");
+        Assertions.assertThat(projectProperties.getProperty("pom.unrelated")).isEqualTo("${pom.root}/unrelated");
+    }
+
+    @Test
+    public void givenMetricsReportEnabled_whenReading_thenCountersAreWrittenAsJson() throws Exception {
+        projectStub.getProperties().setProperty("test.property2", "inherited");
+        File file = File.createTempFile("prop-test", ".properties");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("test.property1=a" + NEW_LINE);
+            writer.write("test.property2=${test.property1}" + NEW_LINE);
+        }
+        File report = new File(Files.createTempDirectory("metrics").toFile(), "nested/report.json");
+
+        readPropertiesMojo.setWriteMetricsReport(true);
+        readPropertiesMojo.setMetricsReportFile(report);
+        readPropertiesMojo.setFiles(new File[] {file});
+        readPropertiesMojo.execute();
+
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        Assertions.assertThat(json)
+          .contains("\"resourcesLoaded\": 1")
+          .contains("\"bytesRead\": " + file.length())
+          .contains("\"keysLoaded\": 2")
+          .contains("\"keysOverridden\": 1")
+          .contains("\"placeholdersExpanded\": 1")
+          .contains("\"resolve\": ");
+    }
+
     private File getPropertyFileForTesting() throws IOException {
         return getPropertyFileForTesting( null );
     }
@@ -0,0 +1,17 @@
+package io.polivakha.mojo.properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class TemplateCacheTest {
+
+    @Test
+    public void givenSameRawValue_whenRequestedAgain_thenCachedTemplateIsReused() {
+        TemplateCache cache = new TemplateCache();
+
+        ValueTemplate template = cache.get("${a}-${b}");
+
+        Assertions.assertThat(cache.get(new String("${a}-${b}"))).isSameAs(template);
+        Assertions.assertThat(cache.get("${a}-${c}")).isNotSameAs(template);
+    }
+}
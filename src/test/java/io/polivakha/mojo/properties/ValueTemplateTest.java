@@ -0,0 +1,44 @@
+package io.polivakha.mojo.properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import io.polivakha.mojo.properties.PlaceholderTokenizer.Segment;
+
+public class ValueTemplateTest {
+
+    @Test
+    public void givenLiteralValue_whenCompiled_thenTemplateIsConstant() {
+        ValueTemplate template = ValueTemplate.compile("just a $ value }");
+
+        Assertions.assertThat(template.isConstant()).isTrue();
+        Assertions.assertThat(template.getSegments()).isEmpty();
+        Assertions.assertThat(template.getStaticReferences()).isEmpty();
+        Assertions.assertThat(template.getRawValue()).isEqualTo("just a $ value }");
+    }
+
+    @Test
+    public void givenSeveralReferences_whenCompiled_thenEachKeyIsReferencedOnce() {
+        ValueTemplate template = ValueTemplate.compile("${host}:${port}/${host}");
+
+        Assertions.assertThat(template.isConstant()).isFalse();
+        Assertions.assertThat(template.getStaticReferences()).containsExactly("host", "port");
+    }
+
+    @Test
+    public void givenNestedReference_whenCompiled_thenOnlyInnerKeyIsStaticReference() {
+        ValueTemplate template = ValueTemplate.compile("${a.${b}}");
+
+        Assertions.assertThat(template.isConstant()).isFalse();
+        Assertions.assertThat(template.getSegments()).extracting(Segment::toString).containsExactly("${a.${b}}");
+        Assertions.assertThat(template.getStaticReferences()).containsExactly("b");
+    }
+
+    @Test
+    public void givenUnterminatedPlaceholder_whenCompiled_thenTemplateIsConstant() {
+        ValueTemplate template = ValueTemplate.compile("prefix ${unterminated");
+
+        Assertions.assertThat(template.isConstant()).isTrue();
+        Assertions.assertThat(template.getRawValue()).isEqualTo("prefix ${unterminated");
+    }
+}
@@ -0,0 +1,148 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+
+public class ConcurrentPropertiesLoaderTest {
+
+    @Test
+    public void givenSeveralThreads_whenLoadingResources_thenResultsComeInDeclaredOrder() throws IOException {
+        List<Resource> resources = createResources(100);
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(8)) {
+            Iterator<LoadedResource> loaded = loader.load(resources);
+            for (Resource resource : resources) {
+                LoadedResource next = loaded.next();
+                Assertions.assertThat(next.getResource()).isSameAs(resource);
+                Assertions.assertThat(next.getBytesRead()).isPositive();
+            }
+            Assertions.assertThat(loaded.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void givenConflictingResources_whenLoadingProperties_thenLastResourceWinsRegardlessOfThreads() throws IOException {
+        Properties sequential;
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(1)) {
+            sequential = loader.loadProperties(createResources(30));
+        }
+        Properties concurrent;
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(4)) {
+            concurrent = loader.loadProperties(createResources(30));
+        }
+
+        Assertions.assertThat(sequential.getProperty("shared")).isEqualTo("29");
+        Assertions.assertThat(concurrent).isEqualTo(sequential);
+    }
+
+    @Test
+    public void givenFilesAboveMappingThreshold_whenLoading_thenTheyAreParsedThroughMapping() throws IOException {
+        Properties streamed;
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2, StandardCharsets.ISO_8859_1, Long.MAX_VALUE)) {
+            streamed = loader.loadProperties(createResources(10));
+        }
+        List<Resource> resources = createResources(10);
+        Properties mapped;
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2, StandardCharsets.ISO_8859_1, 0)) {
+            Assertions.assertThat(loader.load(resources).next().getBytesRead()).isEqualTo(((FileResource) resources.get(0)).getFile().length());
+            mapped = loader.loadProperties(createResources(10));
+        }
+
+        Assertions.assertThat(mapped).isEqualTo(streamed);
+    }
+
+    @Test
+    public void givenResourcesPreloadedInAnotherOrder_whenLoading_thenResultsComeInDeclaredOrder() throws IOException {
+        List<Resource> resources = createResources(30);
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2)) {
+            for (int i = resources.size() - 1; i >= 0; i--) {
+                loader.preload(resources.get(i));
+            }
+            Iterator<LoadedResource> loaded = loader.load(resources);
+            for (int i = 0; i < resources.size(); i++) {
+                LoadedResource next = loaded.next();
+                Assertions.assertThat(next.getResource()).isSameAs(resources.get(i));
+                Assertions.assertThat(next.getProperties().get("shared")).isEqualTo(String.valueOf(i));
+            }
+            Assertions.assertThat(loaded.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void givenFileReferencedTwice_whenLoading_thenItIsLoadedOnceAndRetainedOnlyUntilLastReference() throws IOException {
+        List<Resource> resources = createResources(2);
+        resources.add(new FileResource(((FileResource) resources.get(0)).getFile()));
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2)) {
+            ConcurrentPropertiesLoader.OrderedResults loaded = (ConcurrentPropertiesLoader.OrderedResults) loader.load(resources);
+
+            LoadedResource first = loaded.next();
+            Assertions.assertThat(loaded.getRetainedCount()).isEqualTo(1);
+            Assertions.assertThat(loaded.next().isReused()).isFalse();
+            Assertions.assertThat(loaded.getRetainedCount()).isEqualTo(1);
+            LoadedResource last = loaded.next();
+
+            Assertions.assertThat(first.isReused()).isFalse();
+            Assertions.assertThat(last.isReused()).isTrue();
+            Assertions.assertThat(last.getResource()).isSameAs(resources.get(2));
+            Assertions.assertThat(last.getProperties()).isSameAs(first.getProperties());
+            Assertions.assertThat(loaded.getRetainedCount()).isZero();
+        }
+    }
+
+    @Test
+    public void givenFilesReferencedOnce_whenLoading_thenNoneOfThemIsRetained() throws IOException {
+        List<Resource> resources = createResources(10);
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2)) {
+            ConcurrentPropertiesLoader.OrderedResults loaded = (ConcurrentPropertiesLoader.OrderedResults) loader.load(resources);
+            while (loaded.hasNext()) {
+                Assertions.assertThat(loaded.next().isReused()).isFalse();
+                Assertions.assertThat(loaded.getRetainedCount()).isZero();
+            }
+        }
+    }
+
+    @Test
+    public void givenMissingResource_whenLoading_thenItIsReportedAsMissing() throws IOException {
+        List<Resource> resources = createResources(2);
+        resources.add(1, new FileResource(new File("does-not-exist.properties")));
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2)) {
+            Iterator<LoadedResource> loaded = loader.load(resources);
+
+            Assertions.assertThat(loaded.next().isMissing()).isFalse();
+            Assertions.assertThat(loaded.next().isMissing()).isTrue();
+            Assertions.assertThat(loaded.next().getProperties().get("shared")).isEqualTo("1");
+        }
+    }
+
+    private static List<Resource> createResources(int count) throws IOException {
+        Path directory = Files.createTempDirectory("loader");
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = directory.resolve(i + ".properties").toFile();
+            try (FileWriter writer = new FileWriter(file)) {
+                writer.write("shared=" + i + "\n");
+                writer.write("key." + i + "=" + i + "\n");
+            }
+            resources.add(new FileResource(file));
+        }
+        return resources;
+    }
+}
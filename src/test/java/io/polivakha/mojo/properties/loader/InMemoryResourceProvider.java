@@ -0,0 +1,43 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import io.polivakha.mojo.properties.models.Resource;
+
+/**
+ * Provider of the <code>memory:a=1;b=2</code> resources, registered in the test resources to check the discovery
+ */
+public class InMemoryResourceProvider implements ResourceProvider {
+
+    @Override
+    public Set<String> getSchemes() {
+        return Collections.singleton("memory");
+    }
+
+    @Override
+    public List<Resource> resolve(String location, ResourceContext context) {
+        String content = location.substring("memory:".length()).replace(';', '\n');
+        return Collections.singletonList(new Resource() {
+
+            @Override
+            public boolean canBeOpened() {
+                return true;
+            }
+
+            @Override
+            protected InputStream openStream() {
+                return new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1));
+            }
+
+            @Override
+            public String toString() {
+                return "Memory: " + content;
+            }
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParseCacheTest {
+
+    private Path directory;
+
+    private Path file;
+
+    private ParseCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("parse-cache");
+        file = Files.createTempFile("cached", ".properties");
+        cache = new ParseCache(directory.resolve("cache"), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void givenUnchangedFile_whenCached_thenPropertiesAreReturnedFromCache() throws IOException {
+        ParsedProperties parsed = write("a=1\nb=" + "long".repeat(30_000));
+
+        ParsedProperties cached = cache.get(file, attributes());
+
+        Assertions.assertThat(cached).isNotNull();
+        Assertions.assertThat(cached.toProperties()).isEqualTo(parsed.toProperties());
+    }
+
+    @Test
+    public void givenTouchedButUnchangedFile_whenCached_thenPropertiesAreReturnedFromCache() throws IOException {
+        write("a=1");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        Assertions.assertThat(cache.get(file, attributes())).isNotNull();
+    }
+
+    @Test
+    public void givenFileChangedWithTheSameSize_whenCached_thenCacheIsNotUsed() throws IOException {
+        write("a=1");
+        Files.write(file, "a=2".getBytes(StandardCharsets.ISO_8859_1));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        Assertions.assertThat(cache.get(file, attributes())).isNull();
+    }
+
+    @Test
+    public void givenFileChangedWithTheSameSizeAndModificationTime_whenCached_thenCacheIsNotUsed() throws IOException {
+        write("a=1");
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.write(file, "a=2".getBytes(StandardCharsets.ISO_8859_1));
+        Files.setLastModifiedTime(file, modified);
+
+        Assertions.assertThat(cache.get(file, attributes())).isNull();
+    }
+
+    @Test
+    public void givenLoneSurrogate_whenCached_thenItIsReturnedAsParsed() throws IOException {
+        ParsedProperties parsed = write("k=\\uD800\nsupplementary=\\uD83D\\uDE00");
+
+        ParsedProperties cached = cache.get(file, attributes());
+
+        Assertions.assertThat(parsed.get("k")).isEqualTo("\uD800");
+        Assertions.assertThat(cached).isNotNull();
+        Assertions.assertThat(cached.toProperties()).isEqualTo(parsed.toProperties());
+    }
+
+    @Test
+    public void givenFileOfAnotherSize_whenCached_thenCacheIsNotUsed() throws IOException {
+        write("a=1");
+        Files.write(file, "a=12".getBytes(StandardCharsets.ISO_8859_1));
+
+        Assertions.assertThat(cache.get(file, attributes())).isNull();
+    }
+
+    @Test
+    public void givenAnotherEncoding_whenCached_thenCacheIsNotUsed() throws IOException {
+        write("a=1");
+
+        ParseCache utf8Cache = new ParseCache(directory.resolve("cache"), StandardCharsets.UTF_8);
+
+        Assertions.assertThat(utf8Cache.get(file, attributes())).isNull();
+    }
+
+    @Test
+    public void givenCorruptedEntry_whenCached_thenCacheIsNotUsed() throws IOException {
+        write("a=1");
+        try (Stream<Path> entries = Files.list(directory.resolve("cache"))) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.write(entry, new byte[] {0x50, 0x52, 0x4F, 0x50, 0, 0, 0, 1, 0x7F, 0, 0, 0});
+            }
+        }
+
+        Assertions.assertThat(cache.get(file, attributes())).isNull();
+    }
+
+    private ParsedProperties write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+        BasicFileAttributes attributes = attributes();
+        ParsedProperties parsed;
+        try (InputStream in = Files.newInputStream(file)) {
+            parsed = new PropertiesParser(StandardCharsets.ISO_8859_1).parse(in);
+        }
+        cache.put(file, attributes, parsed);
+        return parsed;
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+}
@@ -0,0 +1,160 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.Random;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class PropertiesParserTest {
+
+    private static final String[] TRICKY_CONTENTS = {
+        "",
+        "a=b",
+        "a = b\nc:d\ne f\n  g\t=\th  \n",
+        "# comment\n! another comment\n  # indented comment\nkey=value\n",
+        "a=first\\\n    second\\\n\tthird\n",
+        "a=b\\\\\nc=d\n",
+        "a=b\\\r\n  c\r\nd=e\r\n",
+        "a=b\\\r  c\rd=e\r",
+        "a=b\\",
+        "a=b\\\n",
+        "a=b\\\n\n c=d",
+        "\\\n#not a comment=value",
+        "key\\ with\\ spaces=v\\:a\\=l",
+        "tab=\\t\\r\\n\\f\\x\\\\",
+        "unicode=\\u0041\\u00e9\\uD83D\\uDE00",
+        "empty=\nempty2\nempty3:",
+        "dup=1\ndup=2\nother=3\ndup=4",
+        "a==b\nc=:d\ne :f\ng::h",
+        "   \n\t\f\n#c\\\nnext=1",
+        "no newline at the end=true",
+        "\\#not.comment=1\n\\!neither=2",
+    };
+
+    @Test
+    public void givenTrickyContents_whenParsed_thenResultIsTheSameAsOfProperties() throws IOException {
+        for (String content : TRICKY_CONTENTS) {
+            assertSameAsProperties(content, StandardCharsets.ISO_8859_1);
+            assertSameAsProperties(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void givenNonAsciiCharacters_whenParsedInBothEncodings_thenTheyAreDecodedAsProperties() throws IOException {
+        String content = "caf\u00e9=cr\u00e8me br\u00fbl\u00e9e\ncjk=\u4e2d\u6587\nemoji=\ud83d\ude00\n\\\u00e9scaped=\\\u4e2d";
+
+        assertSameAsProperties(content, StandardCharsets.UTF_8);
+        assertSameAsProperties("caf\u00e9=cr\u00e8me br\u00fbl\u00e9e\n\\\u00e9=x", StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void givenRandomContents_whenParsed_thenResultIsTheSameAsOfProperties() throws IOException {
+        String alphabet = "ab =:\\\\\\\\\n\r\t\f#!u0041 \u00e9\u4e2d";
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                content.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsPropertiesOrBothFail(content.toString(), StandardCharsets.UTF_8);
+            assertSameAsPropertiesOrBothFail(content.toString().replace('\u4e2d', 'x'), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Test
+    public void givenLineLongerThanBuffers_whenParsed_thenItIsReadCompletely() throws IOException {
+        String longValue = "v".repeat(200_000);
+
+        ParsedProperties parsed = parse("long=" + longValue + "\\\n  tail\nnext=1", StandardCharsets.UTF_8);
+
+        Assertions.assertThat(parsed.get("long")).isEqualTo(longValue + "tail");
+        Assertions.assertThat(parsed.get("next")).isEqualTo("1");
+    }
+
+    @Test
+    public void givenFileMappedInSmallRegions_whenParsed_thenResultIsTheSameAsOfStream() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("key.").append(i).append(" = value \\\r\n    continued ").append(i).append("\r\n# comment\n");
+        }
+        Path file = Files.createTempFile("mapped", ".properties");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        ParsedProperties mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = new PropertiesParser(StandardCharsets.UTF_8, 1000).parse(channel);
+        }
+
+        Assertions.assertThat(mapped.size()).isEqualTo(5000);
+        Assertions.assertThat(mapped.get("key.4999")).isEqualTo("value continued 4999");
+        Assertions.assertThat(mapped.toProperties()).isEqualTo(parse(content.toString(), StandardCharsets.UTF_8).toProperties());
+        Files.delete(file);
+    }
+
+    @Test
+    public void givenMalformedUnicodeEscape_whenParsed_thenExceptionIsThrown() {
+        Assertions.assertThatThrownBy(() -> parse("a=\\u12", StandardCharsets.ISO_8859_1))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("Malformed \\uxxxx encoding.");
+        Assertions.assertThatThrownBy(() -> parse("a=\\u12g4", StandardCharsets.ISO_8859_1))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void givenMalformedUtf8_whenParsed_thenReplacementCharacterIsUsed() throws IOException {
+        byte[] content = {'a', '=', 'x', (byte) 0xC3, 'y', (byte) 0xFF};
+
+        ParsedProperties parsed = new PropertiesParser(StandardCharsets.UTF_8).parse(new ByteArrayInputStream(content));
+
+        Assertions.assertThat(parsed.get("a")).isEqualTo("x\uFFFDy\uFFFD");
+    }
+
+    @Test
+    public void givenDuplicateKeys_whenParsed_thenLastValueWinsAndFirstPositionIsKept() throws IOException {
+        ParsedProperties parsed = parse("dup=1\nother=2\ndup=3", StandardCharsets.ISO_8859_1);
+
+        Assertions.assertThat(parsed.size()).isEqualTo(2);
+        Assertions.assertThat(parsed.keyAt(0)).isEqualTo("dup");
+        Assertions.assertThat(parsed.valueAt(0)).isEqualTo("3");
+        Assertions.assertThat(parsed.keyAt(1)).isEqualTo("other");
+    }
+
+    @Test
+    public void givenUnsupportedEncoding_whenCreatingParser_thenExceptionIsThrown() {
+        Assertions.assertThatThrownBy(() -> new PropertiesParser(StandardCharsets.UTF_16))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertSameAsPropertiesOrBothFail(String content, Charset charset) throws IOException {
+        Properties expected = new Properties();
+        try {
+            expected.load(new InputStreamReader(new ByteArrayInputStream(content.getBytes(charset)), charset));
+        } catch (IllegalArgumentException e) {
+            Assertions.assertThatThrownBy(() -> parse(content, charset)).as(content).isInstanceOf(IllegalArgumentException.class);
+            return;
+        }
+        Assertions.assertThat(parse(content, charset).toProperties()).as(content).isEqualTo(expected);
+    }
+
+    private static void assertSameAsProperties(String content, Charset charset) throws IOException {
+        Properties expected = new Properties();
+        expected.load(new InputStreamReader(new ByteArrayInputStream(content.getBytes(charset)), charset));
+
+        Assertions.assertThat(parse(content, charset).toProperties()).as(content).isEqualTo(expected);
+    }
+
+    private static ParsedProperties parse(String content, Charset charset) throws IOException {
+        return new PropertiesParser(charset).parse(new ByteArrayInputStream(content.getBytes(charset)));
+    }
+}
@@ -0,0 +1,40 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.UrlResource;
+
+public class ResourceIdentityTest {
+
+    @Test
+    public void givenFileReachedThroughLinkRelativePathAndUrl_whenIdentifying_thenIdentitiesAreEqual() throws Exception {
+        Path directory = Files.createTempDirectory("identity");
+        Path file = Files.write(directory.resolve("base.properties"), "a=1\n".getBytes());
+        Path link = Files.createSymbolicLink(directory.resolve("link.properties"), file);
+
+        Object identity = ResourceIdentity.of(new FileResource(file.toFile()));
+
+        Assertions.assertThat(ResourceIdentity.of(new FileResource(link.toFile()))).isEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new FileResource(new File(directory.toFile(), "../" + directory.getFileName() + "/base.properties"))))
+          .isEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new UrlResource(file.toUri().toString()))).isEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new FileResource(directory.resolve("other.properties").toFile()))).isNotEqualTo(identity);
+    }
+
+    @Test
+    public void givenEquivalentUrls_whenIdentifying_thenIdentitiesAreEqual() throws Exception {
+        Object identity = ResourceIdentity.of(new URL("https://example.com/config/app.properties"));
+
+        Assertions.assertThat(ResourceIdentity.of(new URL("HTTPS://Example.COM:443/config/./app.properties"))).isEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new URL("https://example.com/other/../config/app.properties"))).isEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new URL("https://example.com:8443/config/app.properties"))).isNotEqualTo(identity);
+        Assertions.assertThat(ResourceIdentity.of(new URL("https://example.com/config/app.properties?env=dev"))).isNotEqualTo(identity);
+    }
+}
@@ -0,0 +1,63 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import io.polivakha.mojo.properties.models.FileResource;
+import io.polivakha.mojo.properties.models.Resource;
+import io.polivakha.mojo.properties.models.UrlResource;
+import io.polivakha.mojo.properties.utils.PathParser;
+
+public class ResourceProvidersTest {
+
+    private final ResourceProviders providers = ResourceProviders.load(getClass().getClassLoader());
+
+    private final ResourceContext context = new ResourceContext(new PathParser());
+
+    @Test
+    public void givenRegisteredProvider_whenResolvingItsScheme_thenItsResourcesAreLoaded() throws IOException {
+        List<Resource> resources = providers.resolve("memory:a=1;b=2", context);
+
+        try (ConcurrentPropertiesLoader loader = new ConcurrentPropertiesLoader(2)) {
+            Properties properties = loader.loadProperties(resources);
+
+            Assertions.assertThat(properties).containsEntry("a", "1").containsEntry("b", "2");
+        }
+    }
+
+    @Test
+    public void givenLocationWithoutScheme_whenResolving_thenItIsFile() throws IOException {
+        Assertions.assertThat(providers.resolve("config/app.properties", context))
+          .singleElement()
+          .isInstanceOfSatisfying(FileResource.class, it -> Assertions.assertThat(it.getFile()).isEqualTo(new File("config/app.properties")));
+        Assertions.assertThat(providers.resolve("C:\\config\\app.properties", context)).singleElement().isInstanceOf(FileResource.class);
+        Assertions.assertThat(providers.resolve("file:app.properties", context))
+          .singleElement()
+          .isInstanceOfSatisfying(FileResource.class, it -> Assertions.assertThat(it.getFile()).isEqualTo(new File("app.properties")));
+    }
+
+    @Test
+    public void givenBuiltInSchemes_whenResolving_thenUrlResourcesReturned() throws IOException {
+        Assertions.assertThat(providers.resolve("classpath:missing.properties", context)).singleElement().isInstanceOf(UrlResource.class);
+        Assertions.assertThat(providers.resolve("https://example.com/app.properties", context)).singleElement().isInstanceOf(UrlResource.class);
+    }
+
+    @Test
+    public void givenUnknownScheme_whenResolving_thenExceptionThrown() {
+        Assertions.assertThatThrownBy(() -> providers.resolve("vault:secret/app", context))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("vault");
+    }
+
+    @Test
+    public void givenTwoProvidersOfSameScheme_whenRegistering_thenExceptionThrown() {
+        Assertions.assertThatThrownBy(() -> ResourceProviders.of(List.of(new FileResourceProvider(), new FileResourceProvider())))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("'file'");
+    }
+}
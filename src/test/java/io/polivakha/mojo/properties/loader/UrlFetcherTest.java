@@ -0,0 +1,256 @@
+package io.polivakha.mojo.properties.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class UrlFetcherTest {
+
+    private static final byte[] CONTENT = "remote.key=remote value\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private Path cacheDirectory;
+
+    private ExecutorService serverExecutor;
+
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = Files.createTempDirectory("url-cache");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/app.properties", exchange -> {
+            requests.incrementAndGet();
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(CONTENT);
+            }
+        });
+        server.createContext("/flaky.properties", exchange -> {
+            if (requests.incrementAndGet() < 3) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(CONTENT);
+            }
+        });
+        server.createContext("/slow.properties", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(CONTENT);
+            }
+        });
+        server.createContext("/status.properties", exchange -> {
+            if (status.get() != 200) {
+                exchange.sendResponseHeaders(status.get(), -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(CONTENT);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void givenNoCache_whenFetching_thenUrlIsRequestedOnce() throws IOException {
+        UrlFetcher.Fetched fetched = new UrlFetcher(null, false).fetch(url("/app.properties"));
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(fetched.isFromCache()).isFalse();
+        Assertions.assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenCachedResponse_whenFetchingAgain_thenItIsRevalidatedAndServedFromCache() throws IOException {
+        new UrlFetcher(cacheDirectory, false).fetch(url("/app.properties"));
+
+        UrlFetcher.Fetched fetched = new UrlFetcher(cacheDirectory, false).fetch(url("/app.properties"));
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(fetched.isFromCache()).isTrue();
+        Assertions.assertThat(notModified.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenOfflineMode_whenFetching_thenCacheIsUsedWithoutRequests() throws IOException {
+        new UrlFetcher(cacheDirectory, false).fetch(url("/app.properties"));
+        server.stop(0);
+
+        UrlFetcher.Fetched fetched = new UrlFetcher(cacheDirectory, true).fetch(url("/app.properties"));
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(requests.get()).isEqualTo(1);
+        Assertions.assertThat(new UrlFetcher(cacheDirectory, true).fetch(url("/other.properties")).isMissing()).isTrue();
+    }
+
+    @Test
+    public void givenUnreachableServer_whenFetching_thenStaleCacheIsUsed() throws IOException {
+        URL url = url("/app.properties");
+        new UrlFetcher(cacheDirectory, false).fetch(url);
+        server.stop(0);
+
+        UrlFetcher.Fetched fetched = new UrlFetcher(cacheDirectory, false).fetch(url);
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(fetched.isStale()).isTrue();
+    }
+
+    @Test
+    public void givenServerError_whenFetching_thenStaleCacheIsUsed() throws IOException {
+        URL url = url("/status.properties");
+        new UrlFetcher(cacheDirectory, false).fetch(url);
+        status.set(503);
+
+        UrlFetcher fetcher = new UrlFetcher(cacheDirectory, false);
+        fetcher.setRetries(0);
+        UrlFetcher.Fetched fetched = fetcher.fetch(url);
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(fetched.isStale()).isTrue();
+    }
+
+    @Test
+    public void givenDeniedAccess_whenFetching_thenCacheIsNotUsed() throws IOException {
+        URL url = url("/status.properties");
+        new UrlFetcher(cacheDirectory, false).fetch(url);
+        status.set(403);
+
+        Assertions.assertThat(new UrlFetcher(cacheDirectory, false).fetch(url).isMissing()).isTrue();
+    }
+
+    @Test
+    public void givenCorruptedCache_whenFetching_thenUrlIsFetchedAgain() throws IOException {
+        URL url = url("/app.properties");
+        new UrlFetcher(cacheDirectory, false).fetch(url);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path file : files) {
+                Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 20));
+            }
+        }
+
+        UrlFetcher.Fetched fetched = new UrlFetcher(cacheDirectory, false).fetch(url);
+
+        Assertions.assertThat(fetched.getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(fetched.isFromCache()).isFalse();
+        Assertions.assertThat(notModified.get()).isZero();
+    }
+
+    @Test
+    public void givenNotFound_whenFetching_thenResourceIsMissing() throws IOException {
+        Assertions.assertThat(new UrlFetcher(cacheDirectory, false).fetch(url("/missing.properties")).isMissing()).isTrue();
+    }
+
+    @Test
+    public void givenDeclaredSha256_whenFetching_thenContentIsVerified() throws IOException {
+        String sha256 = UrlFetcher.sha256(CONTENT);
+
+        Assertions.assertThat(new UrlFetcher(null, false).fetch(url("/app.properties#sha256=" + sha256)).getContent()).isEqualTo(CONTENT);
+        Assertions.assertThatThrownBy(() -> new UrlFetcher(null, false).fetch(url("/app.properties#sha256=" + "0".repeat(64))))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("SHA-256");
+    }
+
+    @Test
+    public void givenServerErrors_whenFetching_thenRequestIsRetried() throws IOException {
+        UrlFetcher fetcher = new UrlFetcher(null, false);
+        fetcher.setRetryBackoff(Duration.ofMillis(10));
+
+        Assertions.assertThat(fetcher.fetch(url("/flaky.properties")).getContent()).isEqualTo(CONTENT);
+        Assertions.assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenRetriesExhausted_whenFetching_thenResourceIsMissing() throws IOException {
+        UrlFetcher fetcher = new UrlFetcher(null, false);
+        fetcher.setRetries(1);
+        fetcher.setRetryBackoff(Duration.ofMillis(10));
+
+        Assertions.assertThat(fetcher.fetch(url("/flaky.properties")).isMissing()).isTrue();
+        Assertions.assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenSlowServer_whenRequestTimesOut_thenResourceIsMissing() throws IOException {
+        UrlFetcher fetcher = new UrlFetcher(null, false);
+        fetcher.setRetries(0);
+        fetcher.setRequestTimeout(Duration.ofMillis(100));
+
+        Assertions.assertThat(fetcher.fetch(url("/slow.properties")).isMissing()).isTrue();
+    }
+
+    @Test
+    public void givenSeveralUrls_whenFetchedAsync_thenTheyAreFetchedConcurrently() throws Exception {
+        List<CompletableFuture<UrlFetcher.Fetched>> fetches = new ArrayList<>();
+        long start = System.nanoTime();
+        try (UrlFetcher fetcher = new UrlFetcher(null, false)) {
+            fetcher.setConcurrency(8);
+            for (int i = 0; i < 8; i++) {
+                fetches.add(fetcher.fetchAsync(url("/slow.properties")));
+            }
+            for (CompletableFuture<UrlFetcher.Fetched> fetch : fetches) {
+                Assertions.assertThat(fetch.get().getContent()).isEqualTo(CONTENT);
+            }
+        }
+
+        Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(8 * 500));
+        Assertions.assertThat(requests.get()).isEqualTo(8);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
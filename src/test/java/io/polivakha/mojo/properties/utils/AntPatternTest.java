@@ -0,0 +1,71 @@
+package io.polivakha.mojo.properties.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class AntPatternTest {
+
+    @Test
+    public void givenSingleAsterisk_whenMatching_thenOnlySingleSegmentMatches() {
+        AntPattern pattern = AntPattern.compile("/etc/app/*.properties", "/");
+
+        Assertions.assertThat(pattern.matches("/etc/app/db.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/etc/app/conf/db.properties")).isFalse();
+        Assertions.assertThat(pattern.matches("/etc/app/db.yml")).isFalse();
+        Assertions.assertThat(pattern.matches("/etc/other/db.properties")).isFalse();
+    }
+
+    @Test
+    public void givenDoubleAsterisk_whenMatching_thenAnyNumberOfSegmentsMatches() {
+        AntPattern pattern = AntPattern.compile("/repo/**/conf/*.properties", "/");
+
+        Assertions.assertThat(pattern.matches("/repo/conf/app.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/repo/a/b/c/conf/app.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/repo/a/b/c/app.properties")).isFalse();
+    }
+
+    @Test
+    public void givenQuestionMarkAndSeveralAsterisks_whenMatching_thenWildcardsMatchWithinSegment() {
+        AntPattern pattern = AntPattern.compile("/app-?/*-*.properties", "/");
+
+        Assertions.assertThat(pattern.matches("/app-1/db-prod.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/app-12/db-prod.properties")).isFalse();
+        Assertions.assertThat(pattern.matches("/app-1/db.properties")).isFalse();
+    }
+
+    @Test
+    public void givenSegmentWithCharacterClassAndNoAsterisk_whenMatching_thenItIsMatchedLiterally() {
+        AntPattern pattern = AntPattern.compile("/tmp/rv/x:[y]/*.properties", "/");
+
+        Assertions.assertThat(pattern.matches("/tmp/rv/x:[y]/app.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/tmp/rv/x:y/app.properties")).isFalse();
+        Assertions.assertThat(pattern.matchesStart("/tmp/rv/x:[y]")).isTrue();
+    }
+
+    @Test
+    public void givenTemplateVariableWithRegex_whenMatching_thenRegexIsApplied() {
+        AntPattern pattern = AntPattern.compile("/conf/{version:[0-9.]+}/app.properties", "/");
+
+        Assertions.assertThat(pattern.matches("/conf/1.2.3/app.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/conf/latest/app.properties")).isFalse();
+    }
+
+    @Test
+    public void givenDirectory_whenMatchingStart_thenOnlyDirectoriesThatCanContainMatchesAreAccepted() {
+        AntPattern pattern = AntPattern.compile("/repo/*/conf/*.properties", "/");
+
+        Assertions.assertThat(pattern.matchesStart("/repo")).isTrue();
+        Assertions.assertThat(pattern.matchesStart("/repo/service")).isTrue();
+        Assertions.assertThat(pattern.matchesStart("/repo/service/conf")).isTrue();
+        Assertions.assertThat(pattern.matchesStart("/repo/service/target")).isFalse();
+        Assertions.assertThat(pattern.matchesStart("/other")).isFalse();
+    }
+
+    @Test
+    public void givenRelativePattern_whenMatchingAbsolutePath_thenItDoesNotMatch() {
+        AntPattern pattern = AntPattern.compile("**/local.properties", "/");
+
+        Assertions.assertThat(pattern.matches("repo/local.properties")).isTrue();
+        Assertions.assertThat(pattern.matches("/repo/local.properties")).isFalse();
+    }
+}
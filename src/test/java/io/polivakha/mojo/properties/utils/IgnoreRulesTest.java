@@ -0,0 +1,53 @@
+package io.polivakha.mojo.properties.utils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class IgnoreRulesTest {
+
+    private final Path repo = Path.of("/repo").toAbsolutePath();
+
+    @Test
+    public void givenNameRule_whenMatching_thenItMatchesAtAnyDepth() {
+        IgnoreRules rules = IgnoreRules.parse(repo, List.of("# build output", "target/", "*.log"));
+
+        Assertions.assertThat(rules.isIgnored(repo.resolve("target"), true)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("module/target"), true)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("module/target"), false)).isNull();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("module/build.log"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("module/app.properties"), false)).isNull();
+    }
+
+    @Test
+    public void givenRuleWithSlash_whenMatching_thenItIsRelativeToDirectoryOfIgnoreFile() {
+        IgnoreRules rules = IgnoreRules.parse(repo, List.of("/local.properties", "config/*.secret", "docs/**"));
+
+        Assertions.assertThat(rules.isIgnored(repo.resolve("local.properties"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("module/local.properties"), false)).isNull();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("config/db.secret"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("config/nested/db.secret"), false)).isNull();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("docs/a/b.properties"), false)).isTrue();
+    }
+
+    @Test
+    public void givenNegatedRule_whenMatching_thenLaterRuleWins() {
+        IgnoreRules rules = IgnoreRules.parse(repo, List.of("*.properties", "!app.properties", "**/generated/app.properties"));
+
+        Assertions.assertThat(rules.isIgnored(repo.resolve("db.properties"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("app.properties"), false)).isFalse();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("a/generated/app.properties"), false)).isTrue();
+    }
+
+    @Test
+    public void givenCharacterClassAndEscapes_whenMatching_thenTheyAreHonoured() {
+        IgnoreRules rules = IgnoreRules.parse(repo, List.of("env-[!p]*.properties", "\\#notes", "trailing\\ "));
+
+        Assertions.assertThat(rules.isIgnored(repo.resolve("env-dev.properties"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("env-prod.properties"), false)).isNull();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("#notes"), false)).isTrue();
+        Assertions.assertThat(rules.isIgnored(repo.resolve("trailing "), false)).isTrue();
+    }
+}
@@ -3,6 +3,10 @@ package io.polivakha.mojo.properties.utils;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
@@ -48,6 +52,208 @@ public class PathParserTest {
         Assertions.assertThat(pathStream).containsOnly(first, second);
     }
 
+    @Test
+    public void givenDirectoriesThatCannotMatch_whenSearching_thenTheirFilesAreNotScanned() throws IOException {
+        Path root = Files.createTempDirectory("monorepo");
+        Path conf = Files.createDirectories(root.resolve("service").resolve("conf"));
+        Path matching = Files.createFile(conf.resolve("app.properties"));
+        Path nodeModules = Files.createDirectories(root.resolve("service").resolve("node_modules").resolve("lib"));
+        for (int i = 0; i < 10; i++) {
+            Files.createFile(nodeModules.resolve(i + ".properties"));
+        }
+        Files.createFile(root.resolve("service").resolve("root.properties"));
+
+        PathParser pathParser = new PathParser();
+        Stream<Path> pathStream = pathParser.streamFilesMatchingAntPath(Path.of(root.toString(), "*", "conf", "*.properties").toString());
+
+        Assertions.assertThat(pathStream).containsOnly(matching);
+        Assertions.assertThat(pathParser.getScannedFilesCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenSingleAsterisk_whenSearching_thenFilesOfNestedDirectoriesDoNotMatch() throws IOException {
+        Path root = Files.createTempDirectory("my_temp");
+        Path direct = Files.createFile(root.resolve("direct.properties"));
+        Files.createFile(Files.createDirectory(root.resolve("nested")).resolve("nested.properties"));
+
+        Stream<Path> pathStream = new PathParser().streamFilesMatchingAntPath(Path.of(root.toString(), "*.properties").toString());
+
+        Assertions.assertThat(pathStream).containsOnly(direct);
+    }
+
+    @Test
+    public void givenMaxDepth_whenSearching_thenDeeperFilesAreIgnored() throws IOException {
+        Path root = Files.createTempDirectory("my_temp");
+        Path shallow = Files.createFile(Files.createDirectories(root.resolve("a")).resolve("shallow.properties"));
+        Files.createFile(Files.createDirectories(root.resolve("a").resolve("b")).resolve("deep.properties"));
+
+        PathParser pathParser = new PathParser();
+        pathParser.setMaxDepth(2);
+        Stream<Path> pathStream = pathParser.streamFilesMatchingAntPath(Path.of(root.toString(), "**", "*.properties").toString());
+
+        Assertions.assertThat(pathStream).containsOnly(shallow);
+    }
+
+    @Test
+    public void givenSymbolicLinkToParentDirectory_whenSearching_thenCycleIsSkipped() throws IOException {
+        Path root = Files.createTempDirectory("my_temp");
+        Path file = Files.createFile(root.resolve("app.properties"));
+        Files.createSymbolicLink(root.resolve("loop"), root);
+
+        Stream<Path> pathStream = new PathParser().streamFilesMatchingAntPath(Path.of(root.toString(), "**", "*.properties").toString());
+
+        Assertions.assertThat(pathStream).containsOnly(file);
+    }
+
+    @Test
+    public void givenSeveralPatternsUnderSameDirectory_whenSearching_thenTreeIsWalkedOnceAndFilesAreGroupedByPattern() throws IOException {
+        Path root = Files.createTempDirectory("my_temp");
+        Path conf = Files.createDirectories(root.resolve("a").resolve("conf"));
+        Path app = Files.createFile(conf.resolve("app.properties"));
+        Path db = Files.createFile(conf.resolve("db.properties"));
+        Files.createFile(root.resolve("a").resolve("readme.txt"));
+
+        PathParser pathParser = new PathParser();
+        List<List<Path>> matched = pathParser.findFilesMatchingAntPaths(
+          List.of(Path.of(root.toString(), "**", "db.properties").toString(), Path.of(conf.toString(), "*.properties").toString()),
+          List.of()
+        );
+
+        Assertions.assertThat(matched.get(0)).containsExactly(db);
+        Assertions.assertThat(matched.get(1)).containsExactlyInAnyOrder(app, db);
+        Assertions.assertThat(pathParser.getScannedFilesCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenExcludes_whenSearching_thenExcludedFilesAndDirectoriesAreSkipped() throws IOException {
+        Path root = Files.createTempDirectory("my_temp");
+        Path app = Files.createFile(root.resolve("app.properties"));
+        Files.createFile(root.resolve("local.properties"));
+        Path nodeModules = Files.createDirectories(root.resolve("web").resolve("node_modules"));
+        Files.createFile(nodeModules.resolve("lib.properties"));
+
+        PathParser pathParser = new PathParser();
+        List<List<Path>> matched = pathParser.findFilesMatchingAntPaths(
+          List.of(Path.of(root.toString(), "**", "*.properties").toString()),
+          List.of("**/node_modules/**", "**/local.properties")
+        );
+
+        Assertions.assertThat(matched.get(0)).containsExactly(app);
+        Assertions.assertThat(pathParser.getScannedFilesCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenIgnoreFiles_whenSearchingWithThem_thenIgnoredDirectoriesAreNotWalked() throws IOException {
+        Path repo = Files.createTempDirectory("repo");
+        Files.createDirectory(repo.resolve(".git"));
+        Files.write(repo.resolve(".gitignore"), List.of("target/", "*.local.properties"));
+        Path module = Files.createDirectories(repo.resolve("module"));
+        Files.write(module.resolve(".ignore"), List.of("!keep.local.properties"));
+        Path app = Files.createFile(module.resolve("app.properties"));
+        Path keep = Files.createFile(module.resolve("keep.local.properties"));
+        Files.createFile(module.resolve("dev.local.properties"));
+        Path target = Files.createDirectories(module.resolve("target").resolve("classes"));
+        for (int i = 0; i < 10; i++) {
+            Files.createFile(target.resolve(i + ".properties"));
+        }
+
+        PathParser pathParser = new PathParser();
+        pathParser.setUseIgnoreFiles(true);
+        List<List<Path>> matched = pathParser.findFilesMatchingAntPaths(List.of(Path.of(module.toString(), "**", "*.properties").toString()), List.of());
+
+        Assertions.assertThat(matched.get(0)).containsOnly(app, keep);
+        Assertions.assertThat(pathParser.getScannedFilesCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenParallelWalk_whenSearching_thenSameSortedFilesAsSequentialWalkAreFound() throws IOException {
+        Path repo = Files.createTempDirectory("repo");
+        Files.createDirectory(repo.resolve(".git"));
+        Files.write(repo.resolve(".gitignore"), List.of("ignored/"));
+        for (int i = 0; i < 20; i++) {
+            Path module = Files.createDirectories(repo.resolve("module-" + i).resolve("conf"));
+            Files.createFile(module.resolve("app.properties"));
+            Files.createFile(module.resolve("app.yml"));
+            Files.createFile(Files.createDirectories(repo.resolve("module-" + i).resolve("ignored")).resolve("app.properties"));
+        }
+        Files.createSymbolicLink(repo.resolve("module-0").resolve("loop"), repo);
+        List<String> includes = List.of(Path.of(repo.toString(), "**", "conf", "*.properties").toString(), Path.of(repo.toString(), "module-1?", "**", "*.yml").toString());
+
+        PathParser sequential = new PathParser();
+        sequential.setUseIgnoreFiles(true);
+        PathParser parallel = new PathParser();
+        parallel.setUseIgnoreFiles(true);
+        parallel.setParallelism(8);
+
+        List<List<Path>> expected = sequential.findFilesMatchingAntPaths(includes, List.of());
+        List<List<Path>> actual = parallel.findFilesMatchingAntPaths(includes, List.of());
+
+        Assertions.assertThat(expected.get(0)).hasSize(20).isSorted();
+        Assertions.assertThat(expected.get(1)).hasSize(10).isSorted();
+        Assertions.assertThat(actual).isEqualTo(expected);
+        Assertions.assertThat(parallel.getScannedFilesCount()).isEqualTo(sequential.getScannedFilesCount());
+    }
+
+    @Test
+    public void givenParallelWalkOfMissingDirectory_whenSearching_thenExceptionIsThrown() {
+        PathParser pathParser = new PathParser();
+        pathParser.setParallelism(4);
+
+        Assertions.assertThatThrownBy(() -> pathParser.findFilesMatchingAntPaths(List.of("/does/not/exist/*.properties"), List.of()))
+          .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void givenScanIndex_whenTreeHasNotChanged_thenNoDirectoryIsListedAgain() throws IOException {
+        Path root = Files.createTempDirectory("indexed");
+        Path conf = Files.createDirectories(root.resolve("a").resolve("conf"));
+        Path app = Files.createFile(conf.resolve("app.properties"));
+        Files.createFile(Files.createDirectories(root.resolve("b")).resolve("b.properties"));
+        FileTime lastWeek = FileTime.from(Instant.now().minus(7, ChronoUnit.DAYS));
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                Files.setLastModifiedTime(directory, lastWeek);
+            }
+        }
+        Path indexFile = Files.createTempDirectory("index").resolve("scan-index.bin");
+        List<String> includes = List.of(Path.of(root.toString(), "**", "conf", "*.properties").toString());
+
+        PathParser first = new PathParser();
+        ScanIndex firstIndex = ScanIndex.load(indexFile, true);
+        first.setScanIndex(firstIndex);
+        Assertions.assertThat(first.findFilesMatchingAntPaths(includes, List.of()).get(0)).containsExactly(app);
+        firstIndex.save();
+        Assertions.assertThat(first.getListedDirectoriesCount()).isEqualTo(4);
+
+        PathParser second = new PathParser();
+        ScanIndex secondIndex = ScanIndex.load(indexFile, true);
+        second.setScanIndex(secondIndex);
+        Assertions.assertThat(second.findFilesMatchingAntPaths(includes, List.of()).get(0)).containsExactly(app);
+        secondIndex.save();
+        Assertions.assertThat(second.getListedDirectoriesCount()).isZero();
+        Assertions.assertThat(secondIndex.getHitsCount()).isEqualTo(4);
+
+        Path db = Files.createFile(conf.resolve("db.properties"));
+
+        PathParser third = new PathParser();
+        third.setScanIndex(ScanIndex.load(indexFile, true));
+        Assertions.assertThat(third.findFilesMatchingAntPaths(includes, List.of()).get(0)).containsExactly(app, db);
+        Assertions.assertThat(third.getListedDirectoriesCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenCorruptedScanIndex_whenSearching_thenTreeIsListed() throws IOException {
+        Path root = Files.createTempDirectory("indexed");
+        Path app = Files.createFile(root.resolve("app.properties"));
+        Path indexFile = Files.write(Files.createTempFile("scan-index", ".bin"), new byte[] {1, 2, 3});
+
+        PathParser pathParser = new PathParser();
+        pathParser.setScanIndex(ScanIndex.load(indexFile, true));
+
+        Assertions.assertThat(pathParser.streamFilesMatchingAntPath(Path.of(root.toString(), "*.properties").toString())).containsExactly(app);
+        Assertions.assertThat(pathParser.getListedDirectoriesCount()).isEqualTo(1);
+    }
+
     @Test
     public void whenEmptyString_thenJustForwardSlashReturned() {
         String s = new PathParser().extractExactDirectory(Path.of(""));